@@ -0,0 +1,14 @@
+package com.vendormachine.configserver.compiled;
+
+import org.springframework.http.MediaType;
+
+/**
+ * An environment serialized once, as it would be written by the environment endpoint,
+ * and identified by an ETag over its bytes.
+ */
+record CompiledEnvironment(byte[] body, MediaType mediaType, String etag) {
+
+    boolean sameAs(CompiledEnvironment other) {
+        return other != null && etag.equals(other.etag) && mediaType.equals(other.mediaType);
+    }
+}
@@ -0,0 +1,149 @@
+package com.vendormachine.configserver.compiled;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.EnvironmentMediaType;
+import org.springframework.cloud.config.server.environment.EnvironmentController;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Environments compiled on first request and then served from memory. Compiling goes
+ * through the {@link EnvironmentController}, so label handling and decryption are the
+ * same as on the regular endpoint. Concurrent first requests for an environment share a
+ * single compilation, and a background task compiles every held environment again so
+ * that backend changes are picked up without any request touching the backend.
+ */
+public class CompiledEnvironmentCache implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledEnvironmentCache.class);
+
+    private static final MediaType V2_JSON = MediaType.parseMediaType(EnvironmentMediaType.V2_JSON);
+
+    private final EnvironmentController environmentController;
+    private final ObjectMapper objectMapper;
+    private final CompiledEnvironmentProperties properties;
+    private final Map<EnvironmentKey, CompletableFuture<CompiledEnvironment>> environments = new ConcurrentHashMap<>();
+    private final Map<EnvironmentKey, Set<CompletableFuture<CompiledEnvironment>>> watchers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public CompiledEnvironmentCache(EnvironmentController environmentController, ObjectMapper objectMapper,
+                                    CompiledEnvironmentProperties properties) {
+        this.environmentController = environmentController;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "compiled-environment-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.refreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the compiled environment, compiling it on first use, or {@code null} when it
+     * cannot be compiled or the cache is full. The regular endpoint then handles the request.
+     */
+    public CompiledEnvironment get(EnvironmentKey key) {
+        CompletableFuture<CompiledEnvironment> environment = environments.get(key);
+        if (environment == null) {
+            if (environments.size() >= properties.maxEntries()) {
+                return null;
+            }
+            CompletableFuture<CompiledEnvironment> compiling = new CompletableFuture<>();
+            environment = environments.putIfAbsent(key, compiling);
+            if (environment == null) {
+                environment = compiling;
+                try {
+                    compiling.complete(compile(key));
+                } catch (RuntimeException e) {
+                    // Not cached, so that the next request tries the backend again
+                    environments.remove(key, compiling);
+                    compiling.completeExceptionally(e);
+                }
+            }
+        }
+
+        try {
+            return environment.join();
+        } catch (CompletionException e) {
+            log.debug("Could not compile environment {}", key, e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Completes with the environment once its ETag differs from the given one, which may
+     * be right away. Cancel the returned future to stop watching.
+     */
+    public CompletableFuture<CompiledEnvironment> watch(EnvironmentKey key, String etag) {
+        CompletableFuture<CompiledEnvironment> change = new CompletableFuture<>();
+        Set<CompletableFuture<CompiledEnvironment>> keyWatchers =
+                watchers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+        keyWatchers.add(change);
+        change.whenComplete((environment, e) -> keyWatchers.remove(change));
+
+        // Checked after registering, so a change swapped in meanwhile is not missed
+        CompiledEnvironment current = get(key);
+        if (current != null && !current.etag().equals(etag)) {
+            change.complete(current);
+        }
+        return change;
+    }
+
+    public int size() {
+        return environments.size();
+    }
+
+    /**
+     * Compiles every held environment again and swaps in those that changed.
+     */
+    public void refresh() {
+        environments.forEach((key, current) -> {
+            if (!current.isDone() || current.isCompletedExceptionally()) {
+                return;
+            }
+            try {
+                CompiledEnvironment refreshed = compile(key);
+                if (!refreshed.sameAs(current.join())) {
+                    environments.replace(key, current, CompletableFuture.completedFuture(refreshed));
+                    log.info("Environment {} changed, now {}", key, refreshed.etag());
+                    watchers.getOrDefault(key, Set.of()).forEach(watcher -> watcher.complete(refreshed));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh environment {}, serving the last compiled version", key, e);
+            }
+        });
+    }
+
+    private CompiledEnvironment compile(EnvironmentKey key) {
+        Environment environment = environmentController.getEnvironment(
+                key.application(), key.profiles(), key.label(), key.includeOrigin());
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(environment);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize environment " + key, e);
+        }
+        String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        return new CompiledEnvironment(body, key.includeOrigin() ? V2_JSON : MediaType.APPLICATION_JSON, etag);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,29 @@
+package com.vendormachine.configserver.compiled;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.config.server.config.ConfigServerProperties;
+import org.springframework.cloud.config.server.environment.EnvironmentController;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CompiledEnvironmentProperties.class)
+@ConditionalOnProperty(prefix = "configserver.compiled", name = "enabled", matchIfMissing = true)
+public class CompiledEnvironmentConfig {
+
+    @Bean
+    public CompiledEnvironmentCache compiledEnvironmentCache(EnvironmentController environmentController,
+                                                             ObjectMapper objectMapper,
+                                                             CompiledEnvironmentProperties properties) {
+        return new CompiledEnvironmentCache(environmentController, objectMapper, properties);
+    }
+
+    @Bean
+    public CompiledEnvironmentFilter compiledEnvironmentFilter(CompiledEnvironmentCache cache,
+                                                               CompiledEnvironmentProperties properties,
+                                                               ConfigServerProperties configServerProperties) {
+        return new CompiledEnvironmentFilter(cache, properties, configServerProperties.getPrefix());
+    }
+}
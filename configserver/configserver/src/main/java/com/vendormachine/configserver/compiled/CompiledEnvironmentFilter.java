@@ -0,0 +1,100 @@
+package com.vendormachine.configserver.compiled;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.cloud.config.environment.EnvironmentMediaType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers {@code GET /{application}/{profiles}[/{label}]} from {@link CompiledEnvironmentCache}
+ * with an ETag, and with 304 when the client already holds that version. Everything else,
+ * and any environment that cannot be compiled, goes on to the regular config server
+ * endpoints.
+ */
+public class CompiledEnvironmentFilter extends OncePerRequestFilter {
+
+    private static final List<PathPattern> ENVIRONMENT_PATHS = List.of(
+            PathPatternParser.defaultInstance.parse("/{application}/{profiles}"),
+            PathPatternParser.defaultInstance.parse("/{application}/{profiles}/{label}"));
+    private static final String CACHE_CONTROL = "no-cache";
+
+    private final CompiledEnvironmentCache cache;
+    private final CompiledEnvironmentProperties properties;
+    private final String prefix;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public CompiledEnvironmentFilter(CompiledEnvironmentCache cache, CompiledEnvironmentProperties properties,
+                                     String prefix) {
+        this.cache = cache;
+        this.properties = properties;
+        this.prefix = prefix == null ? "" : StringUtils.trimTrailingCharacter(prefix, '/');
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EnvironmentKey key = key(request);
+        CompiledEnvironment environment = key == null ? null : cache.get(key);
+        if (environment == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, environment.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(environment.etag()) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(environment.mediaType().toString());
+        response.setContentLength(environment.body().length);
+        if (!HttpMethod.HEAD.matches(request.getMethod())) {
+            response.getOutputStream().write(environment.body());
+        }
+    }
+
+    private EnvironmentKey key(HttpServletRequest request) {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        if (!path.startsWith(prefix)) {
+            return null;
+        }
+        PathContainer pathContainer = PathContainer.parsePath(path.substring(prefix.length()));
+        for (PathPattern pattern : ENVIRONMENT_PATHS) {
+            PathPattern.PathMatchInfo match = pattern.matchAndExtract(pathContainer);
+            if (match != null) {
+                Map<String, String> variables = match.getUriVariables();
+                String application = variables.get("application");
+                String profiles = variables.get("profiles");
+                // Leave actuator and friends alone, and files such as /{label}/{application}-{profile}.yml
+                if (properties.reservedNames().contains(application) || profiles.contains(".")) {
+                    return null;
+                }
+                String accept = request.getHeader(HttpHeaders.ACCEPT);
+                boolean includeOrigin = accept != null && accept.contains(EnvironmentMediaType.V2_JSON);
+                return new EnvironmentKey(application, profiles, variables.get("label"), includeOrigin);
+            }
+        }
+        return null;
+    }
+}
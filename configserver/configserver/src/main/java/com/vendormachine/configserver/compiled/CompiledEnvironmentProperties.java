@@ -0,0 +1,26 @@
+package com.vendormachine.configserver.compiled;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * In-memory serving of environments.
+ *
+ * @param enabled         serve environment requests from memory
+ * @param refreshInterval how often every held environment is compiled again from the backend
+ * @param maxEntries      environments held at most; requests for others go to the backend
+ * @param reservedNames   first path segments that are never application names
+ * @param maxWatchTimeout longest a watch request is held open before it is answered with 304
+ */
+@ConfigurationProperties(prefix = "configserver.compiled")
+public record CompiledEnvironmentProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("30s") Duration refreshInterval,
+        @DefaultValue("1000") int maxEntries,
+        @DefaultValue({"actuator", "encrypt", "decrypt", "key", "monitor", "watch"}) Set<String> reservedNames,
+        @DefaultValue("60s") Duration maxWatchTimeout
+) {
+}
@@ -0,0 +1,8 @@
+package com.vendormachine.configserver.compiled;
+
+/**
+ * One environment request: the path variables of the environment endpoint and whether
+ * the client asked for property origins (the v2 media type).
+ */
+record EnvironmentKey(String application, String profiles, String label, boolean includeOrigin) {
+}
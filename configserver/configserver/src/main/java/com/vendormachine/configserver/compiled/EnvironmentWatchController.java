@@ -0,0 +1,59 @@
+package com.vendormachine.configserver.compiled;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Long-poll change notifications. A client sends the ETag of the environment it holds
+ * and the request is answered as soon as the environment changes, with the new
+ * environment and ETag, or with 304 once the timeout (milliseconds) passes. Changes are noticed by the
+ * background recompilation of {@link CompiledEnvironmentCache}.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "configserver.compiled", name = "enabled", matchIfMissing = true)
+public class EnvironmentWatchController {
+
+    private final CompiledEnvironmentCache cache;
+    private final CompiledEnvironmentProperties properties;
+
+    public EnvironmentWatchController(CompiledEnvironmentCache cache, CompiledEnvironmentProperties properties) {
+        this.cache = cache;
+        this.properties = properties;
+    }
+
+    @GetMapping({"/watch/{application}/{profiles}", "/watch/{application}/{profiles}/{label}"})
+    public DeferredResult<ResponseEntity<byte[]>> watch(
+            @PathVariable String application,
+            @PathVariable String profiles,
+            @PathVariable(required = false) String label,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String etag,
+            @RequestParam(name = "timeout", defaultValue = "30000") long timeoutMillis) {
+        long wait = Math.min(timeoutMillis, properties.maxWatchTimeout().toMillis());
+        DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>(wait,
+                ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+
+        CompletableFuture<CompiledEnvironment> change =
+                cache.watch(new EnvironmentKey(application, profiles, label, false), etag);
+        change.thenAccept(environment -> result.setResult(ResponseEntity.ok()
+                .eTag(environment.etag())
+                .contentType(environment.mediaType())
+                .body(environment.body())));
+        result.onCompletion(() -> change.cancel(false));
+
+        // Nothing to watch until the environment can be compiled; the client retries later
+        if (!change.isDone() && cache.get(new EnvironmentKey(application, profiles, label, false)) == null) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,176 @@
+package com.vendormachine.configserver.compiled;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.config.environment.EnvironmentMediaType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "configserver.compiled.refresh-interval=1h")
+@AutoConfigureMockMvc
+@ActiveProfiles("native")
+class CompiledEnvironmentIntegrationTests {
+
+    private static final Path CONFIG_REPO = createConfigRepo();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CompiledEnvironmentCache cache;
+
+    @DynamicPropertySource
+    static void configRepo(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.config.server.native.search-locations", () -> CONFIG_REPO.toUri().toString());
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(CONFIG_REPO.resolve("vendor-machine-dev.properties"), "security.jwt.expiration-time=3600000\n");
+        cache.refresh();
+    }
+
+    @Test
+    void environment_ShouldBeServedWithAnETag() throws Exception {
+        mockMvc.perform(get("/vendor-machine/dev"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.name").value("vendor-machine"))
+                .andExpect(jsonPath("$.propertySources[0].source['security.jwt.expiration-time']").value("3600000"));
+    }
+
+    @Test
+    void environment_ShouldReturnNotModified_WhenTheETagMatches() throws Exception {
+        String etag = mockMvc.perform(get("/vendor-machine/dev"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/vendor-machine/dev").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void environment_ShouldIncludeOrigins_WhenTheV2MediaTypeIsAccepted() throws Exception {
+        mockMvc.perform(get("/vendor-machine/dev/main").accept(EnvironmentMediaType.V2_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(EnvironmentMediaType.V2_JSON))
+                .andExpect(jsonPath("$.propertySources[0].source['security.jwt.expiration-time'].value").value("3600000"));
+    }
+
+    @Test
+    void refresh_ShouldServeTheChangedEnvironmentUnderANewETag() throws Exception {
+        String etag = mockMvc.perform(get("/vendor-machine/dev"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Files.writeString(CONFIG_REPO.resolve("vendor-machine-dev.properties"), "security.jwt.expiration-time=7200000\n");
+        mockMvc.perform(get("/vendor-machine/dev").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        cache.refresh();
+
+        String refreshedEtag = mockMvc.perform(get("/vendor-machine/dev").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.propertySources[0].source['security.jwt.expiration-time']").value("7200000"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, refreshedEtag);
+    }
+
+    @Test
+    void watch_ShouldAnswerRightAway_WhenTheClientHasNoOrAnOldETag() throws Exception {
+        String etag = mockMvc.perform(get("/vendor-machine/dev"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult watch = mockMvc.perform(get("/watch/vendor-machine/dev").header(HttpHeaders.IF_NONE_MATCH, "\"old\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(watch))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void watch_ShouldBeCompletedByARefresh() throws Exception {
+        String etag = mockMvc.perform(get("/vendor-machine/dev"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult watch = mockMvc.perform(get("/watch/vendor-machine/dev")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .param("timeout", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThrows(IllegalStateException.class, () -> watch.getAsyncResult(200), "answered before anything changed");
+
+        Files.writeString(CONFIG_REPO.resolve("vendor-machine-dev.properties"), "security.jwt.expiration-time=7200000\n");
+        cache.refresh();
+
+        mockMvc.perform(asyncDispatch(watch))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.propertySources[0].source['security.jwt.expiration-time']").value("7200000"));
+    }
+
+    @Test
+    void watch_ShouldReturnNotModified_WhenNothingChangesBeforeTheTimeout() throws Exception {
+        String etag = mockMvc.perform(get("/vendor-machine/dev"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult watch = mockMvc.perform(get("/watch/vendor-machine/dev")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .param("timeout", "100"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // MockMvc never times requests out by itself
+        MockAsyncContext asyncContext = (MockAsyncContext) watch.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        mockMvc.perform(asyncDispatch(watch))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void otherEndpoints_ShouldBeLeftToTheConfigServer() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        mockMvc.perform(get("/vendor-machine-dev.properties"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not("")));
+    }
+
+    private static Path createConfigRepo() {
+        try {
+            return Files.createTempDirectory("config-repo");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
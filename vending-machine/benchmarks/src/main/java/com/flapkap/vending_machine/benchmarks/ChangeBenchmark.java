@@ -0,0 +1,65 @@
+package com.flapkap.vending_machine.benchmarks;
+
+import com.flapkap.vending_machine.service.impl.VendorMachineServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change calculation at the end of every purchase and reset. The method is private to
+ * the service, so it is reached through a method handle held in a static final, which
+ * the JIT inlines like a direct call. Writing the coins into the response is covered by
+ * {@link WireFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeBenchmark {
+
+    private static final MethodHandle CALCULATE_CHANGE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(
+                    VendorMachineServiceImpl.class, MethodHandles.lookup());
+            CALCULATE_CHANGE = lookup.findVirtual(VendorMachineServiceImpl.class, "calculateChange",
+                    MethodType.methodType(List.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // 0: no change, 35: three coins, 185: all five denominations
+    @Param({"0", "35", "185"})
+    private int amount;
+
+    private VendorMachineServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        service = new VendorMachineServiceImpl(null, null, null, null);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<Integer> calculateChange() throws Throwable {
+        return (List<Integer>) CALCULATE_CHANGE.invokeExact(service, amount);
+    }
+}
@@ -0,0 +1,69 @@
+package com.flapkap.vending_machine.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.config.ApplicationConfig;
+import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.dto.User;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.util.MappingUtil;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signup-style {@code User -> UserEntity -> User} round trip through the generated
+ * {@link MappingUtil} versus the {@code ObjectMapper.convertValue} path it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private MappingUtil mappingUtil;
+    private User user;
+    private ProductEntity product;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ApplicationConfig().objectMapper();
+        mappingUtil = Mappers.getMapper(MappingUtil.class);
+        user = new User("buyer", "password", 100, Set.of(Role.BUYER));
+
+        UserEntity seller = new UserEntity();
+        seller.setId(1L);
+        product = new ProductEntity(1L, 10, 50, "Cola", seller);
+    }
+
+    @Benchmark
+    public User userRoundTripConvertValue() {
+        UserEntity entity = objectMapper.convertValue(user, UserEntity.class);
+        return objectMapper.convertValue(entity, User.class);
+    }
+
+    @Benchmark
+    public User userRoundTripMapper() {
+        return mappingUtil.toUser(mappingUtil.toUserEntity(user));
+    }
+
+    @Benchmark
+    public Product productToDtoMapper() {
+        return mappingUtil.toProduct(product);
+    }
+}
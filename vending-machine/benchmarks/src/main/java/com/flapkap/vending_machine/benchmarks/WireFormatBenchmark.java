@@ -0,0 +1,113 @@
+package com.flapkap.vending_machine.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.flapkap.vending_machine.config.ApplicationConfig;
+import com.flapkap.vending_machine.dto.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a product catalog through the same HTTP message converters the application
+ * registers, once per wire format. The encoded size of each format is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final Type PRODUCT_LIST = new ParameterizedTypeReference<List<Product>>() { }.getType();
+
+    @Param({"json-indented", "json", "cbor", "smile", "protobuf"})
+    private String format;
+
+    @Param({"100"})
+    private int products;
+
+    private GenericHttpMessageConverter<Object> converter;
+    private List<Product> catalog;
+    private BufferedOutputMessage output;
+
+    @Setup
+    public void setUp() throws IOException {
+        converter = converter(format);
+        catalog = IntStream.range(0, products)
+                .mapToObj(i -> new Product(i % 20, 5 * (i + 1), "Product " + i, (long) (i % 7)))
+                .toList();
+        output = new BufferedOutputMessage();
+        System.out.printf("%n%s: %d bytes for %d products%n", format, write().size(), products);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeCatalog() throws IOException {
+        return write();
+    }
+
+    private ByteArrayOutputStream write() throws IOException {
+        output.body.reset();
+        converter.write(catalog, PRODUCT_LIST, null, output);
+        return output.body;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GenericHttpMessageConverter<Object> converter(String format) {
+        ApplicationConfig config = new ApplicationConfig();
+        return switch (format) {
+            case "json-indented" -> {
+                ObjectMapper indented = config.objectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+                yield new MappingJackson2HttpMessageConverter(indented);
+            }
+            case "json" -> new MappingJackson2HttpMessageConverter(config.objectMapper());
+            case "cbor" -> (GenericHttpMessageConverter<Object>) (Object) config.cborHttpMessageConverter();
+            case "smile" -> (GenericHttpMessageConverter<Object>) (Object) config.smileHttpMessageConverter();
+            case "protobuf" -> {
+                List<HttpMessageConverter<?>> converters = new ArrayList<>();
+                config.extendMessageConverters(converters);
+                yield (GenericHttpMessageConverter<Object>) converters.get(0);
+            }
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(16 * 1024);
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public ByteArrayOutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.flapkap.vending_machine.loadtest;
+
+import com.flapkap.vending_machine.dto.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Writes the synthetic sellers, buyers and products straight through JDBC so that
+ * seeding large volumes does not go through the API being measured. Everything it
+ * creates is prefixed with {@value #PREFIX} and replaced on the next run, which keeps
+ * a shared MySQL stand-in usable.
+ */
+@Slf4j
+class DataSeeder {
+
+    static final String PREFIX = "lt-";
+    static final String PASSWORD = "load-test-password";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int[] COSTS = {5, 10, 15, 20, 25, 35, 50, 65, 75, 100, 120, 150};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final LoadTestProperties properties;
+
+    DataSeeder(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder, LoadTestProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.properties = properties;
+    }
+
+    /**
+     * Seeds the configured volumes and returns the catalog.
+     */
+    List<SeededProduct> seed() {
+        jdbcTemplate.update("DELETE FROM products WHERE product_name LIKE ?", PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", PREFIX + "%");
+
+        // One hash for everyone: seeding should not spend minutes in BCrypt
+        String hash = passwordEncoder.encode(PASSWORD);
+        insertUsers(properties.sellers(), hash, Role.SELLER, DataSeeder::sellerName);
+        insertUsers(properties.buyers(), hash, Role.BUYER, DataSeeder::buyerName);
+
+        List<Long> sellerIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username LIKE ? ORDER BY id", Long.class, PREFIX + "seller-%");
+        SplittableRandom random = new SplittableRandom(42);
+        List<SeededProduct> catalog = new ArrayList<>(properties.products());
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < properties.products(); i++) {
+            SeededProduct product = new SeededProduct(PREFIX + "product-" + i, COSTS[random.nextInt(COSTS.length)]);
+            catalog.add(product);
+            rows.add(new Object[]{properties.initialStock(), product.cost(), product.name(),
+                    sellerIds.get(i % sellerIds.size())});
+            if (rows.size() == BATCH_SIZE) {
+                insertProducts(rows);
+            }
+        }
+        insertProducts(rows);
+
+        log.info("Seeded {} sellers, {} buyers and {} products with {} units each",
+                properties.sellers(), properties.buyers(), properties.products(), properties.initialStock());
+        return catalog;
+    }
+
+    static String sellerName(int index) {
+        return PREFIX + "seller-" + index;
+    }
+
+    static String buyerName(int index) {
+        return PREFIX + "buyer-" + index;
+    }
+
+    private void insertUsers(int count, String hash, Role role, IntFunction<String> name) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{name.apply(i), hash, 0, role.mask()});
+            if (rows.size() == BATCH_SIZE) {
+                flush("INSERT INTO users (username, password, deposit, roles) VALUES (?, ?, ?, ?)", rows);
+            }
+        }
+        flush("INSERT INTO users (username, password, deposit, roles) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    private void insertProducts(List<Object[]> rows) {
+        flush("INSERT INTO products (amount_available, cost, product_name, seller_id) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    private void flush(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
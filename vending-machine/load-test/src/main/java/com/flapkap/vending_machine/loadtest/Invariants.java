@@ -0,0 +1,72 @@
+package com.flapkap.vending_machine.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Post-run consistency checks of the database against what the API told the virtual
+ * users. Any lost update, e.g. two purchases of the same product overwriting each
+ * other's stock decrement, shows up as a mismatch here.
+ */
+final class Invariants {
+
+    private Invariants() {
+    }
+
+    static List<Check> verify(JdbcTemplate jdbcTemplate, Ledger ledger, List<SeededProduct> catalog,
+                              LoadTestProperties properties) {
+        String prefix = DataSeeder.PREFIX + "%";
+        List<Check> checks = new ArrayList<>();
+
+        long negativeStock = count(jdbcTemplate,
+                "SELECT COUNT(*) FROM products WHERE product_name LIKE ? AND amount_available < 0", prefix);
+        checks.add(new Check("no negative stock", negativeStock == 0, negativeStock + " products below zero"));
+
+        long negativeDeposits = count(jdbcTemplate,
+                "SELECT COUNT(*) FROM users WHERE username LIKE ? AND deposit < 0", prefix);
+        checks.add(new Check("no negative deposits", negativeDeposits == 0, negativeDeposits + " users below zero"));
+
+        Map<String, Integer> remaining = new HashMap<>();
+        jdbcTemplate.query("SELECT product_name, amount_available FROM products WHERE product_name LIKE ?",
+                rs -> { remaining.put(rs.getString(1), rs.getInt(2)); }, prefix);
+        long unitsSold = 0;
+        long revenue = 0;
+        long mismatchedProducts = 0;
+        for (SeededProduct product : catalog) {
+            int sold = properties.initialStock() - remaining.getOrDefault(product.name(), properties.initialStock());
+            unitsSold += sold;
+            revenue += (long) sold * product.cost();
+            if (sold != ledger.unitsBought.getOrDefault(product.name(), 0)) {
+                mismatchedProducts++;
+            }
+        }
+        long unitsBought = ledger.unitsBought.values().stream().mapToLong(Integer::longValue).sum();
+        checks.add(new Check("stock matches purchases", mismatchedProducts == 0,
+                "%d units bought, stock fell by %d; %d products disagree".formatted(unitsBought, unitsSold, mismatchedProducts)));
+
+        checks.add(new Check("revenue matches stock", revenue == ledger.spent,
+                "%d cents charged, %d cents of stock sold".formatted(ledger.spent, revenue)));
+
+        long held = count(jdbcTemplate, "SELECT COALESCE(SUM(deposit), 0) FROM users WHERE username LIKE ?", prefix);
+        checks.add(new Check("deposits match balances", held == ledger.outstandingDeposit,
+                "%d cents held, %d cents expected".formatted(held, ledger.outstandingDeposit)));
+
+        long accounted = held + ledger.spent + ledger.changeReturned;
+        checks.add(new Check("cents conserved", accounted == ledger.deposited,
+                "%d deposited = %d held + %d spent + %d returned".formatted(
+                        ledger.deposited, held, ledger.spent, ledger.changeReturned)));
+        return checks;
+    }
+
+    private static long count(JdbcTemplate jdbcTemplate, String sql, String prefix) {
+        Long value = jdbcTemplate.queryForObject(sql, Long.class, prefix);
+        return value == null ? 0 : value;
+    }
+
+    record Check(String name, boolean passed, String detail) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.flapkap.vending_machine.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Money and stock movements as the API reported them to one virtual user, covering
+ * warm-up and measurement alike. Summed over all users it is checked against the
+ * database by {@link Invariants}.
+ */
+final class Ledger {
+
+    long deposited;
+    long spent;
+    long changeReturned;
+    // What the user should still have in the machine
+    long outstandingDeposit;
+    final Map<String, Integer> unitsBought = new HashMap<>();
+    // Requests whose effect is unknown, e.g. timeouts; the invariants are only exact when zero
+    long uncertain;
+
+    void add(Ledger other) {
+        deposited += other.deposited;
+        spent += other.spent;
+        changeReturned += other.changeReturned;
+        outstandingDeposit += other.outstandingDeposit;
+        other.unitsBought.forEach((product, units) -> unitsBought.merge(product, units, Integer::sum));
+        uncertain += other.uncertain;
+    }
+}
@@ -0,0 +1,93 @@
+package com.flapkap.vending_machine.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of a run, printed to the console and written as JSON so that runs of
+ * different releases can be compared.
+ */
+record LoadReport(
+        int virtualUsers,
+        double durationSeconds,
+        double throughputPerSecond,
+        double errorRate,
+        List<OperationSummary> operations,
+        List<Invariants.Check> invariants,
+        long uncertainRequests
+) {
+
+    static LoadReport of(LoadTestProperties properties, Map<Operation, OperationStats> stats,
+                         List<Invariants.Check> invariants, Ledger ledger) {
+        double seconds = properties.duration().toMillis() / 1000.0;
+        List<OperationSummary> operations = new ArrayList<>();
+        long total = 0;
+        long failed = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operation = entry.getValue();
+            total += operation.total();
+            failed += operation.failed;
+            operations.add(OperationSummary.of(entry.getKey(), operation, seconds));
+        }
+        return new LoadReport(properties.buyers(), seconds, total / seconds,
+                total == 0 ? 0 : (double) failed / total, operations, invariants, ledger.uncertain);
+    }
+
+    boolean passed() {
+        return invariants.stream().allMatch(Invariants.Check::passed);
+    }
+
+    String format() {
+        StringBuilder out = new StringBuilder();
+        out.append("%nLoad test: %d virtual users for %.0fs, %.1f requests/s, %.3f%% failed%n%n"
+                .formatted(virtualUsers, durationSeconds, throughputPerSecond, errorRate * 100));
+        out.append("%-8s %10s %9s %9s %9s %9s %9s %9s %9s%n".formatted(
+                "op", "requests", "req/s", "rejected", "failed", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (OperationSummary op : operations) {
+            out.append("%-8s %10d %9.1f %9d %9d %9.2f %9.2f %9.2f %9.2f%n".formatted(
+                    op.operation(), op.requests(), op.throughputPerSecond(), op.rejected(), op.failed(),
+                    op.p50Millis(), op.p90Millis(), op.p99Millis(), op.maxMillis()));
+        }
+        out.append(System.lineSeparator());
+        for (Invariants.Check check : invariants) {
+            out.append("%-4s %-25s %s%n".formatted(check.passed() ? "OK" : "FAIL", check.name(), check.detail()));
+        }
+        if (uncertainRequests > 0) {
+            out.append("%d requests had an unknown outcome; the invariants may be off by those%n"
+                    .formatted(uncertainRequests));
+        }
+        return out.toString();
+    }
+
+    record OperationSummary(
+            Operation operation,
+            long requests,
+            double throughputPerSecond,
+            long rejected,
+            long failed,
+            double p50Millis,
+            double p90Millis,
+            double p99Millis,
+            double p999Millis,
+            double maxMillis
+    ) {
+
+        static OperationSummary of(Operation operation, OperationStats stats, double seconds) {
+            Histogram latency = stats.latencyMicros;
+            return new OperationSummary(operation, stats.total(), stats.total() / seconds,
+                    stats.rejected, stats.failed,
+                    millis(latency.getValueAtPercentile(50)),
+                    millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
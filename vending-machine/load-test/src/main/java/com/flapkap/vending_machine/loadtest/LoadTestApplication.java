@@ -0,0 +1,117 @@
+package com.flapkap.vending_machine.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.flapkap.vending_machine.VendingMachineApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the vending machine with the {@code local} profile, seeds synthetic data and
+ * drives it through the REST API with one virtual user per seeded buyer. Workload and
+ * application settings can be overridden on the command line, e.g.
+ * {@code --loadtest.buyers=200 --spring.datasource.url=jdbc:mysql://...}. The profile
+ * turns the rate limit, load shedding and bulkheads off, so the flows themselves are
+ * measured; {@code --vending.bulkhead.enabled=true} and its siblings put them back. Exits
+ * with 1 if any post-run invariant fails.
+ */
+@Slf4j
+public final class LoadTestApplication {
+
+    private LoadTestApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean passed;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VendingMachineApplication.class)
+                .profiles("local")
+                .properties(
+                        "server.port=0",
+                        "logging.level.root=WARN",
+                        "logging.level.com.flapkap.vending_machine.loadtest=INFO",
+                        "vending.access-log.success-sample-rate=0")
+                .run(args)) {
+            LoadTestProperties properties = Binder.get(context.getEnvironment())
+                    .bindOrCreate("loadtest", LoadTestProperties.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            List<SeededProduct> catalog = new DataSeeder(jdbcTemplate, context.getBean(PasswordEncoder.class), properties)
+                    .seed();
+            List<VirtualUser> users = drive(URI.create("http://localhost:" + port), catalog, properties);
+
+            Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+            Ledger ledger = new Ledger();
+            for (VirtualUser user : users) {
+                user.stats.forEach((operation, operationStats) ->
+                        stats.computeIfAbsent(operation, o -> new OperationStats()).add(operationStats));
+                ledger.add(user.ledger);
+            }
+
+            LoadReport report = LoadReport.of(properties, stats,
+                    Invariants.verify(jdbcTemplate, ledger, catalog, properties), ledger);
+            System.out.println(report.format());
+            write(report, properties.report());
+            passed = report.passed();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static List<VirtualUser> drive(URI baseUri, List<SeededProduct> catalog, LoadTestProperties properties)
+            throws InterruptedException, ExecutionException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        long measureFrom = System.nanoTime() + properties.warmup().toNanos();
+        long stopAt = measureFrom + properties.duration().toNanos();
+
+        log.info("Driving {} virtual users: {} warm-up, {} measured",
+                properties.buyers(), properties.warmup(), properties.duration());
+        ExecutorService executor = Executors.newFixedThreadPool(properties.buyers());
+        try {
+            List<Future<VirtualUser>> running = new ArrayList<>(properties.buyers());
+            for (int i = 0; i < properties.buyers(); i++) {
+                running.add(executor.submit(new VirtualUser(client, baseUri, objectMapper, DataSeeder.buyerName(i),
+                        catalog, properties, measureFrom, stopAt, i)));
+            }
+            List<VirtualUser> users = new ArrayList<>(running.size());
+            for (Future<VirtualUser> user : running) {
+                users.add(user.get());
+            }
+            return users;
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void write(LoadReport report, Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        log.info("Report written to {}", path.toAbsolutePath());
+    }
+}
@@ -0,0 +1,51 @@
+package com.flapkap.vending_machine.loadtest;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Workload settings, bound from {@code loadtest.*}.
+ *
+ * @param sellers      seeded sellers owning the catalog
+ * @param buyers       seeded buyers, one virtual user each
+ * @param products     seeded products
+ * @param initialStock units of each product at the start of the run
+ * @param warmup       traffic before measurement starts; it still counts towards the invariants
+ * @param duration     measured traffic
+ * @param thinkTime    pause between one virtual user's requests
+ * @param mix          relative weights of the operations each virtual user picks from
+ * @param report       JSON report written at the end of the run
+ */
+record LoadTestProperties(
+        @DefaultValue("5") int sellers,
+        @DefaultValue("50") int buyers,
+        @DefaultValue("100") int products,
+        @DefaultValue("1000") int initialStock,
+        @DefaultValue("10s") Duration warmup,
+        @DefaultValue("60s") Duration duration,
+        @DefaultValue("0ms") Duration thinkTime,
+        @DefaultValue Mix mix,
+        @DefaultValue("target/load-test-report.json") Path report
+) {
+
+    record Mix(
+            @DefaultValue("5") int login,
+            @DefaultValue("50") int catalog,
+            @DefaultValue("25") int deposit,
+            @DefaultValue("15") int buy,
+            @DefaultValue("5") int reset
+    ) {
+
+        int weight(Operation operation) {
+            return switch (operation) {
+                case LOGIN -> login;
+                case CATALOG -> catalog;
+                case DEPOSIT -> deposit;
+                case BUY -> buy;
+                case RESET -> reset;
+            };
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.flapkap.vending_machine.loadtest;
+
+enum Operation {
+    LOGIN,
+    CATALOG,
+    DEPOSIT,
+    BUY,
+    RESET
+}
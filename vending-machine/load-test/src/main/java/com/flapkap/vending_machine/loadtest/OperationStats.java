@@ -0,0 +1,47 @@
+package com.flapkap.vending_machine.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and outcome counts for one operation. Each virtual user owns its own
+ * instances, which are merged once the run is over.
+ */
+final class OperationStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    final Histogram latencyMicros = new Histogram(MAX_LATENCY_MICROS, 3);
+    long succeeded;
+    // 4xx answers the workload can legitimately cause, e.g. a product selling out
+    long rejected;
+    // 5xx, authentication failures and transport errors
+    long failed;
+
+    void record(long latencyNanos, Outcome outcome) {
+        latencyMicros.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        switch (outcome) {
+            case SUCCEEDED -> succeeded++;
+            case REJECTED -> rejected++;
+            case FAILED -> failed++;
+        }
+    }
+
+    void add(OperationStats other) {
+        latencyMicros.add(other.latencyMicros);
+        succeeded += other.succeeded;
+        rejected += other.rejected;
+        failed += other.failed;
+    }
+
+    long total() {
+        return succeeded + rejected + failed;
+    }
+
+    enum Outcome {
+        SUCCEEDED,
+        REJECTED,
+        FAILED
+    }
+}
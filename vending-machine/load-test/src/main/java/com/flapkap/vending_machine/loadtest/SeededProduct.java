@@ -0,0 +1,4 @@
+package com.flapkap.vending_machine.loadtest;
+
+record SeededProduct(String name, int cost) {
+}
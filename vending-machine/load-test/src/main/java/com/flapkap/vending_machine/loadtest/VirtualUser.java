@@ -0,0 +1,246 @@
+package com.flapkap.vending_machine.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.dto.BuyRequest;
+import com.flapkap.vending_machine.dto.DepositRequest;
+import com.flapkap.vending_machine.dto.LoginRequest;
+import com.flapkap.vending_machine.dto.PurchaseItem;
+import com.flapkap.vending_machine.dto.response.BuyResponse;
+import com.flapkap.vending_machine.dto.response.LoginResponse;
+import com.flapkap.vending_machine.dto.response.ResetResponse;
+import com.flapkap.vending_machine.loadtest.OperationStats.Outcome;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+
+/**
+ * One buyer working through the weighted operation mix until the run ends. The user
+ * tracks its own deposit, so it only buys what it can afford: rejections come from
+ * products selling out, not from the workload being unrealistic.
+ */
+final class VirtualUser implements Callable<VirtualUser> {
+
+    private static final int[] COINS = {5, 10, 20, 50, 100};
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final String username;
+    private final List<SeededProduct> catalog;
+    private final LoadTestProperties properties;
+    private final long measureFrom;
+    private final long stopAt;
+    private final SplittableRandom random;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    final Ledger ledger = new Ledger();
+
+    private String token;
+    private int deposit;
+
+    VirtualUser(HttpClient client, URI baseUri, ObjectMapper objectMapper, String username,
+                List<SeededProduct> catalog, LoadTestProperties properties,
+                long measureFrom, long stopAt, long seed) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.username = username;
+        this.catalog = catalog;
+        this.properties = properties;
+        this.measureFrom = measureFrom;
+        this.stopAt = stopAt;
+        this.random = new SplittableRandom(seed);
+        this.operations = Operation.values();
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += properties.mix().weight(operations[i]);
+            cumulativeWeights[i] = total;
+            stats.put(operations[i], new OperationStats());
+        }
+    }
+
+    @Override
+    public VirtualUser call() throws InterruptedException {
+        login();
+        while (System.nanoTime() < stopAt) {
+            switch (nextOperation()) {
+                case LOGIN -> login();
+                case CATALOG -> catalog();
+                case DEPOSIT -> deposit();
+                case BUY -> buy();
+                case RESET -> reset();
+            }
+            if (!properties.thinkTime().isZero()) {
+                Thread.sleep(properties.thinkTime().toMillis());
+            }
+        }
+        ledger.outstandingDeposit = deposit;
+        return this;
+    }
+
+    private Operation nextOperation() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return Operation.CATALOG;
+    }
+
+    private void login() {
+        Response response = send(Operation.LOGIN, post("/api/v1/auth/login",
+                new LoginRequest(username, DataSeeder.PASSWORD), false));
+        if (response.succeeded()) {
+            token = read(response.body(), LoginResponse.class).token();
+        }
+    }
+
+    private void catalog() {
+        send(Operation.CATALOG, request("/api/v1/products", true).GET().build());
+    }
+
+    private void deposit() {
+        int coin = COINS[random.nextInt(COINS.length)];
+        Response response = send(Operation.DEPOSIT, post("/api/v1/vendors/deposit", new DepositRequest(coin), true));
+        if (response.succeeded()) {
+            deposit += coin;
+            ledger.deposited += coin;
+        } else if (response.uncertain()) {
+            ledger.uncertain++;
+        }
+    }
+
+    private void buy() {
+        Map<SeededProduct, Integer> cart = new LinkedHashMap<>();
+        int cost = 0;
+        int lines = 1 + random.nextInt(3);
+        for (int i = 0; i < lines; i++) {
+            SeededProduct product = catalog.get(random.nextInt(catalog.size()));
+            if (cost + product.cost() <= deposit) {
+                cart.merge(product, 1, Integer::sum);
+                cost += product.cost();
+            }
+        }
+        if (cart.isEmpty()) {
+            deposit();
+            return;
+        }
+
+        List<PurchaseItem> items = new ArrayList<>(cart.size());
+        cart.forEach((product, units) -> items.add(new PurchaseItem(product.name(), units)));
+        Response response = send(Operation.BUY, post("/api/v1/vendors/buy", new BuyRequest(items), true));
+        if (response.succeeded()) {
+            BuyResponse purchase = read(response.body(), BuyResponse.class);
+            ledger.spent += purchase.totalSpent();
+            ledger.changeReturned += purchase.change();
+            cart.forEach((product, units) -> ledger.unitsBought.merge(product.name(), units, Integer::sum));
+            deposit = 0;
+        } else if (response.uncertain()) {
+            ledger.uncertain++;
+        }
+    }
+
+    private void reset() {
+        Response response = send(Operation.RESET, post("/api/v1/vendors/reset", null, true));
+        if (response.succeeded()) {
+            ledger.changeReturned += read(response.body(), ResetResponse.class).returned();
+            deposit = 0;
+        } else if (response.uncertain()) {
+            ledger.uncertain++;
+        }
+    }
+
+    private Response send(Operation operation, HttpRequest request) {
+        long start = System.nanoTime();
+        Response response;
+        try {
+            HttpResponse<String> http = client.send(request, HttpResponse.BodyHandlers.ofString());
+            response = new Response(http.statusCode(), http.body(),
+                    http.headers().firstValue("Retry-After").isPresent());
+        } catch (IOException e) {
+            response = new Response(0, "", false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = new Response(0, "", false);
+        }
+        long end = System.nanoTime();
+        if (start >= measureFrom) {
+            stats.get(operation).record(end - start, response.outcome());
+        }
+        return response;
+    }
+
+    private HttpRequest post(String path, Object body, boolean authenticated) {
+        return request(path, authenticated)
+                .header("Content-Type", "application/json")
+                .POST(body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(write(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, boolean authenticated) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT);
+        if (authenticated && token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private byte[] write(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected response: " + body, e);
+        }
+    }
+
+    /**
+     * @param refused answered with {@code Retry-After}: turned away by the rate limit, the
+     *                load shedder or a bulkhead before the request was handled
+     */
+    private record Response(int status, String body, boolean refused) {
+
+        boolean succeeded() {
+            return status >= 200 && status < 300;
+        }
+
+        // No answer, or a server error that may have happened after the commit
+        boolean uncertain() {
+            return status == 0 || status >= 500 && !refused;
+        }
+
+        Outcome outcome() {
+            if (succeeded()) {
+                return Outcome.SUCCEEDED;
+            }
+            if (refused) {
+                return Outcome.REJECTED;
+            }
+            boolean unauthenticated = status == 401 || status == 403;
+            return status >= 400 && status < 500 && !unauthenticated ? Outcome.REJECTED : Outcome.FAILED;
+        }
+    }
+}
@@ -2,12 +2,18 @@ package com.flapkap.vending_machine;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class VendingMachineApplication {
 
+	// Startup steps kept for /actuator/startup and /api/v1/admin/startup
+	private static final int STARTUP_STEPS = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(VendingMachineApplication.class, args);
+		SpringApplication application = new SpringApplication(VendingMachineApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 
 }
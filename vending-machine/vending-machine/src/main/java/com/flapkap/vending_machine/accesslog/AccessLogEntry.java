@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.accesslog;
+
+import java.time.Instant;
+
+/**
+ * One access log line, written as a JSON object.
+ *
+ * @param error simple name of the exception that escaped the filter chain, if any
+ */
+public record AccessLogEntry(
+        Instant timestamp,
+        String method,
+        String path,
+        String query,
+        int status,
+        long durationMillis,
+        String remoteAddress,
+        String error
+) {
+}
@@ -0,0 +1,62 @@
+package com.flapkap.vending_machine.accesslog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times every request and hands the sampled ones to the {@link AccessLogWriter}.
+ * Errors (status 400 and above, or an escaping exception) and slow requests are
+ * always kept; nothing is allocated for requests that are sampled out.
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLogWriter writer;
+    private final double successSampleRate;
+    private final long slowThresholdNanos;
+
+    public AccessLogFilter(AccessLogWriter writer, AccessLogProperties properties) {
+        this.writer = writer;
+        this.successSampleRate = properties.successSampleRate();
+        this.slowThresholdNanos = properties.slowThreshold().toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            int status = failure != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            if (shouldLog(status, elapsed)) {
+                writer.submit(new AccessLogEntry(
+                        Instant.now(),
+                        request.getMethod(),
+                        request.getRequestURI(),
+                        request.getQueryString(),
+                        status,
+                        elapsed / 1_000_000,
+                        request.getRemoteAddr(),
+                        failure != null ? failure.getClass().getSimpleName() : null));
+            }
+        }
+    }
+
+    private boolean shouldLog(int status, long elapsedNanos) {
+        return status >= 400
+                || elapsedNanos >= slowThresholdNanos
+                || ThreadLocalRandom.current().nextDouble() < successSampleRate;
+    }
+}
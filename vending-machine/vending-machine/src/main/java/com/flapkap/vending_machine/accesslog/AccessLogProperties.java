@@ -0,0 +1,24 @@
+package com.flapkap.vending_machine.accesslog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Access log settings. Failed and slow requests are always logged; successful ones
+ * only at the sample rate.
+ *
+ * @param successSampleRate fraction of successful requests that are logged, from 0 to 1
+ * @param slowThreshold     requests taking at least this long are always logged
+ * @param bufferSize        entries held for the writer; rounded up to a power of two, overflow is dropped
+ * @param idleWait          how long the writer sleeps when the buffer is empty
+ */
+@ConfigurationProperties(prefix = "vending.access-log")
+public record AccessLogProperties(
+        @DefaultValue("0.1") double successSampleRate,
+        @DefaultValue("1s") Duration slowThreshold,
+        @DefaultValue("8192") int bufferSize,
+        @DefaultValue("50ms") Duration idleWait
+) {
+}
@@ -0,0 +1,64 @@
+package com.flapkap.vending_machine.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded lock-free ring for many producers and a single consumer. Producers claim a
+ * slot with a CAS on the tail and never block: when the ring is full the entry is
+ * dropped and counted instead.
+ */
+class AccessLogRing {
+
+    private final AtomicReferenceArray<AccessLogEntry> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    // Only advanced by the consumer
+    private volatile long head;
+
+    AccessLogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(AccessLogEntry entry) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, entry);
+        return true;
+    }
+
+    /**
+     * Next entry in claim order, or {@code null} when the ring is empty or the next
+     * claimed slot has not been published yet. Consumer thread only.
+     */
+    AccessLogEntry poll() {
+        long position = head;
+        int index = (int) position & mask;
+        AccessLogEntry entry = slots.get(index);
+        if (entry == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head = position + 1;
+        return entry;
+    }
+
+    long drainDroppedCount() {
+        return dropped.sumThenReset();
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
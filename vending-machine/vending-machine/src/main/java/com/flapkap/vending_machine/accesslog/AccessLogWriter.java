@@ -0,0 +1,103 @@
+package com.flapkap.vending_machine.accesslog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Drains the access log ring on a background thread and writes each entry as one JSON
+ * line, so request threads never format or perform I/O for the access log. By default
+ * lines go to the {@value #LOGGER_NAME} logger, which can be routed to its own appender.
+ */
+@Slf4j
+public class AccessLogWriter implements AutoCloseable {
+
+    public static final String LOGGER_NAME = "ACCESS_LOG";
+
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AccessLogRing ring;
+    private final Consumer<String> sink;
+    private final long idleWaitNanos;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    private long droppedSinceReport;
+    private long lastDropReport = System.nanoTime();
+
+    public AccessLogWriter(AccessLogProperties properties) {
+        this(properties, LoggerFactory.getLogger(LOGGER_NAME)::info);
+    }
+
+    AccessLogWriter(AccessLogProperties properties, Consumer<String> sink) {
+        this.ring = new AccessLogRing(properties.bufferSize());
+        this.sink = sink;
+        this.idleWaitNanos = properties.idleWait().toNanos();
+        this.thread = new Thread(this::run, "access-log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues an entry without blocking; returns {@code false} if the buffer was full.
+     */
+    public boolean submit(AccessLogEntry entry) {
+        return ring.offer(entry);
+    }
+
+    private void run() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(idleWaitNanos);
+            }
+            reportDrops();
+        }
+        drain();
+        reportDrops();
+    }
+
+    private int drain() {
+        int written = 0;
+        AccessLogEntry entry;
+        while ((entry = ring.poll()) != null) {
+            try {
+                sink.accept(objectMapper.writeValueAsString(entry));
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.warn("Could not write access log entry for {} {}", entry.method(), entry.path(), e);
+            }
+            written++;
+        }
+        return written;
+    }
+
+    private void reportDrops() {
+        droppedSinceReport += ring.drainDroppedCount();
+        long now = System.nanoTime();
+        if (droppedSinceReport > 0 && now - lastDropReport >= DROP_REPORT_INTERVAL_NANOS) {
+            log.warn("Access log buffer full, dropped {} entries", droppedSinceReport);
+            droppedSinceReport = 0;
+            lastDropReport = now;
+        }
+    }
+
+    /**
+     * Stops the writer after flushing whatever is still buffered.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -0,0 +1,82 @@
+package com.flapkap.vending_machine.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the requests one compartment handles at a time. Requests over the cap wait
+ * in arrival order, up to the queue limit and the maximum wait.
+ */
+final class Bulkhead {
+
+    static final String ACTIVE = "vending.bulkhead.active";
+    static final String WAITING = "vending.bulkhead.waiting";
+    static final String REJECTED = "vending.bulkhead.rejected";
+
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejected;
+
+    Bulkhead(Compartment compartment, BulkheadProperties.Limits limits, MeterRegistry meterRegistry) {
+        this.maxConcurrent = limits.maxConcurrent();
+        this.maxWaiting = limits.maxWaiting();
+        this.maxWaitNanos = limits.maxWait().toNanos();
+        this.permits = new Semaphore(limits.maxConcurrent(), true);
+        Gauge.builder(ACTIVE, this, Bulkhead::getActive)
+                .tag("compartment", compartment.key())
+                .description("Requests being handled in the compartment")
+                .register(meterRegistry);
+        Gauge.builder(WAITING, waiting, AtomicInteger::get)
+                .tag("compartment", compartment.key())
+                .description("Requests waiting to enter the compartment")
+                .register(meterRegistry);
+        this.rejected = Counter.builder(REJECTED)
+                .tag("compartment", compartment.key())
+                .description("Requests refused with 503 because the compartment and its queue were full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether the caller may proceed; it must then call {@link #release()}
+     */
+    boolean tryAcquire() throws InterruptedException {
+        // The timed form honours fairness, so a free permit is not taken ahead of waiters
+        if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            rejected.increment();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    int getWaiting() {
+        return waiting.get();
+    }
+}
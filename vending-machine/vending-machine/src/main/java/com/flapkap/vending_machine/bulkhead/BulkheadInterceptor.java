@@ -0,0 +1,115 @@
+package com.flapkap.vending_machine.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.controller.AuthController;
+import com.flapkap.vending_machine.controller.ProductController;
+import com.flapkap.vending_machine.controller.UserController;
+import com.flapkap.vending_machine.controller.VendorMachineController;
+import com.flapkap.vending_machine.dto.response.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admits each request to the bulkhead of its compartment and marks the thread with
+ * the compartment while the handler runs, so its transactions use the compartment's
+ * connection pool. Requests outside any compartment, such as product changes and the
+ * admin endpoints, pass straight through and use the shared pool.
+ */
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED = BulkheadInterceptor.class.getName() + ".admitted";
+
+    private final Map<Compartment, Bulkhead> bulkheads = new EnumMap<>(Compartment.class);
+    private final ObjectMapper objectMapper;
+
+    public BulkheadInterceptor(BulkheadProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        properties.compartments().forEach((compartment, limits) ->
+                bulkheads.put(compartment, new Bulkhead(compartment, limits, meterRegistry)));
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Compartment compartment = classify(request, handlerMethod);
+        if (compartment == null) {
+            return true;
+        }
+        Bulkhead bulkhead = bulkheads.get(compartment);
+        if (bulkhead != null && !acquire(bulkhead)) {
+            reject(request, response);
+            return false;
+        }
+        request.setAttribute(ADMITTED, compartment);
+        Compartment.enter(compartment);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ADMITTED) instanceof Compartment compartment) {
+            request.removeAttribute(ADMITTED);
+            Compartment.leave();
+            Bulkhead bulkhead = bulkheads.get(compartment);
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    Bulkhead bulkhead(Compartment compartment) {
+        return bulkheads.get(compartment);
+    }
+
+    static Compartment classify(HttpServletRequest request, HandlerMethod handler) {
+        Class<?> controller = handler.getBeanType();
+        if (controller == ProductController.class) {
+            return HttpMethod.GET.matches(request.getMethod()) ? Compartment.CATALOG : null;
+        }
+        if (controller == AuthController.class) {
+            return Compartment.AUTH;
+        }
+        if (controller == VendorMachineController.class || controller == UserController.class) {
+            return Compartment.PURCHASES;
+        }
+        return null;
+    }
+
+    private static boolean acquire(Bulkhead bulkhead) {
+        try {
+            return bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message("The service is busy, please retry")
+                .path(request.getRequestURI())
+                .build();
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
@@ -0,0 +1,37 @@
+package com.flapkap.vending_machine.bulkhead;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Bulkheads between catalog reads, authentication and purchases. Each compartment
+ * caps the request threads it may occupy, and optionally draws connections from a
+ * pool of its own, configured like {@code spring.datasource.hikari.*} under
+ * {@code vending.bulkhead.pools.<compartment>}.
+ *
+ * @param enabled        isolate the compartments
+ * @param partitionPools give every compartment its own connection pool
+ * @param compartments   limits by compartment; a compartment without limits is not capped
+ */
+@ConfigurationProperties(prefix = "vending.bulkhead")
+public record BulkheadProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("false") boolean partitionPools,
+        @DefaultValue Map<Compartment, Limits> compartments
+) {
+
+    /**
+     * @param maxConcurrent requests handled at the same time
+     * @param maxWaiting    requests waiting for one of those to finish; the rest are refused with 503
+     * @param maxWait       how long a request waits before it is refused
+     */
+    public record Limits(
+            @DefaultValue("50") int maxConcurrent,
+            @DefaultValue("50") int maxWaiting,
+            @DefaultValue("500ms") Duration maxWait
+    ) {
+    }
+}
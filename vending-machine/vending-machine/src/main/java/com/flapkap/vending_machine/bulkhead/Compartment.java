@@ -0,0 +1,41 @@
+package com.flapkap.vending_machine.bulkhead;
+
+import java.util.Locale;
+
+/**
+ * Groups of endpoints that are isolated from each other: a storm in one compartment
+ * only uses up that compartment's workers and connections.
+ */
+public enum Compartment {
+
+    /** Catalog reads, {@code GET} on ProductController */
+    CATALOG,
+    /** Login and signup, AuthController */
+    AUTH,
+    /** Deposits, purchases and account changes, VendorMachineController and UserController */
+    PURCHASES;
+
+    private static final ThreadLocal<Compartment> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return the compartment of the request being handled on this thread, or null outside one
+     */
+    public static Compartment current() {
+        return CURRENT.get();
+    }
+
+    static void enter(Compartment compartment) {
+        CURRENT.set(compartment);
+    }
+
+    static void leave() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Name used in configuration keys, metric tags and pool names.
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
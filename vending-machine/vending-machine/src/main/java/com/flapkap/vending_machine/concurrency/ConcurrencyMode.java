@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.concurrency;
+
+/**
+ * How deposits, purchases and resets protect the user and product rows they update.
+ */
+public enum ConcurrencyMode {
+
+    /**
+     * Rows are read without locks; a concurrent change fails the {@code @Version} check on
+     * flush and the whole operation is retried. Cheap when contention is low.
+     */
+    OPTIMISTIC,
+
+    /**
+     * Rows are read with {@code SELECT ... FOR UPDATE}, the buyer first and then products
+     * in name order, so concurrent operations queue instead of conflicting. Only lock
+     * timeouts and deadlocks are retried.
+     */
+    PESSIMISTIC
+}
@@ -0,0 +1,21 @@
+package com.flapkap.vending_machine.concurrency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Concurrency control for the vending operations.
+ *
+ * @param mode        optimistic version checks or pessimistic row locks
+ * @param maxAttempts attempts per operation before a conflict is returned to the caller
+ * @param backoff     base delay before a retry; doubled per attempt and jittered
+ */
+@ConfigurationProperties(prefix = "vending.concurrency")
+public record ConcurrencyProperties(
+        @DefaultValue("pessimistic") ConcurrencyMode mode,
+        @DefaultValue("5") int maxAttempts,
+        @DefaultValue("5ms") Duration backoff
+) {
+}
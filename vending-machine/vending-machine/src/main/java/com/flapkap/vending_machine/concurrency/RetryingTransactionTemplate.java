@@ -0,0 +1,99 @@
+package com.flapkap.vending_machine.concurrency;
+
+import com.flapkap.vending_machine.metrics.VendingMetrics;
+import com.flapkap.vending_machine.timeout.Deadline;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation in its own transaction and retries it when it loses a race:
+ * optimistic version conflicts, lock timeouts and deadlocks. Each retry is counted in
+ * {@code vending.transaction.retries}. The last failure propagates once the attempts
+ * are used up, or once the operation's {@link Deadline} has passed. Under a deadline,
+ * each attempt's transaction times out with it, rounded up to whole seconds.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ConcurrencyProperties.class)
+public class RetryingTransactionTemplate {
+
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrencyProperties properties;
+    private final VendingMetrics vendingMetrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public RetryingTransactionTemplate(PlatformTransactionManager transactionManager,
+                                       ConcurrencyProperties properties,
+                                       VendingMetrics vendingMetrics) {
+        this.transactionManager = transactionManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.vendingMetrics = vendingMetrics;
+    }
+
+    public ConcurrencyMode mode() {
+        return properties.mode();
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate().execute(status -> {
+                    if (status.isNewTransaction()) {
+                        // With open-in-view the persistence context outlives transactions; drop what
+                        // earlier attempts or the authentication filter read so rows are re-read
+                        entityManager.clear();
+                    }
+                    return action.get();
+                });
+            } catch (ConcurrencyFailureException e) {
+                Deadline deadline = Deadline.current();
+                if (deadline != null && deadline.expired()) {
+                    throw e;
+                }
+                if (attempt >= properties.maxAttempts()) {
+                    log.warn("Giving up on {} after {} attempts: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+                log.debug("Retrying {} after attempt {} lost a race: {}", operation, attempt, e.getMessage());
+                vendingMetrics.transactionRetried(operation);
+                backoff(operation, attempt);
+            }
+        }
+    }
+
+    private TransactionTemplate transactionTemplate() {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return transactionTemplate;
+        }
+        TransactionTemplate bounded = new TransactionTemplate(transactionManager);
+        bounded.setTimeout(deadline.remainingSeconds());
+        return bounded;
+    }
+
+    private void backoff(String operation, int attempt) {
+        long base = properties.backoff().toMillis() << (attempt - 1);
+        if (base <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(base / 2, base + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry " + operation, e);
+        }
+    }
+}
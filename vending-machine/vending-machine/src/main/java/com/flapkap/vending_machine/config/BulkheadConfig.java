@@ -0,0 +1,58 @@
+package com.flapkap.vending_machine.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.bulkhead.BulkheadInterceptor;
+import com.flapkap.vending_machine.bulkhead.BulkheadProperties;
+import com.flapkap.vending_machine.bulkhead.Compartment;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.stream.Stream;
+
+/**
+ * Bulkheads around catalog reads, authentication and purchases. Purchases keep their
+ * capacity because the other compartments, waiting requests included, are capped below
+ * the number of request threads, and startup fails otherwise. The bulkhead is the
+ * outermost interceptor, so requests shed by the interceptors inside it still release
+ * their permit.
+ */
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+@ConditionalOnProperty(prefix = "vending.bulkhead", name = "enabled", matchIfMissing = true)
+public class BulkheadConfig implements WebMvcConfigurer {
+
+    private final BulkheadInterceptor bulkheadInterceptor;
+
+    public BulkheadConfig(BulkheadProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                          @Value("${server.tomcat.threads.max:200}") int requestThreads) {
+        this.bulkheadInterceptor = new BulkheadInterceptor(properties, meterRegistry, objectMapper);
+
+        // Waiting requests hold a thread too, and a compartment without limits can take every one
+        int others = Stream.of(Compartment.CATALOG, Compartment.AUTH)
+                .map(properties.compartments()::get)
+                .mapToInt(limits -> limits == null ? requestThreads : limits.maxConcurrent() + limits.maxWaiting())
+                .sum();
+        if (others >= requestThreads) {
+            throw new IllegalStateException("Catalog and auth bulkheads can hold " + others
+                    + " request threads, active and waiting, but the server has only " + requestThreads
+                    + "; lower their max-concurrent or max-waiting so purchases keep some");
+        }
+    }
+
+    @Bean
+    public BulkheadInterceptor bulkheadInterceptor() {
+        return bulkheadInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(bulkheadInterceptor).order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,207 @@
+package com.flapkap.vending_machine.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheEventListenerConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.CacheEventListener;
+import org.ehcache.event.EventType;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Builds the JCache manager backing the Hibernate second-level cache, with one
+ * Ehcache region per entry in {@link EntityCacheProperties}. Sizes and time-to-live of
+ * existing regions follow configuration refreshes through {@link RegionTuner}.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(EntityCacheProperties.class)
+public class EntityCacheConfig {
+
+    public static final String PRODUCTS_REGION = "products";
+    public static final String USERS_REGION = "users";
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private static final long TIMESTAMPS_MAX_ENTRIES = 1_000;
+
+    @Bean
+    public RegionEvictionCounter regionEvictionCounter() {
+        return new RegionEvictionCounter();
+    }
+
+    @Bean
+    public RegionTuner regionTuner(Environment environment) {
+        return new RegionTuner(environment);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(EntityCacheProperties properties, RegionEvictionCounter evictionCounter,
+                                           RegionTuner regionTuner) {
+        ConfigurationBuilder builder = ConfigurationBuilder.newConfigurationBuilder();
+        for (Map.Entry<String, EntityCacheProperties.Region> region : properties.regions().entrySet()) {
+            builder = builder.withCache(region.getKey(),
+                    regionConfiguration(region.getKey(), region.getValue(), evictionCounter, regionTuner));
+        }
+        // Timestamps decide whether cached query results are stale, so they must never expire early
+        if (!properties.regions().containsKey(UPDATE_TIMESTAMPS_REGION)) {
+            builder = builder.withCache(UPDATE_TIMESTAMPS_REGION, regionConfiguration(UPDATE_TIMESTAMPS_REGION,
+                    new EntityCacheProperties.Region(TIMESTAMPS_MAX_ENTRIES, null), evictionCounter, null));
+        }
+        org.ehcache.config.Configuration configuration = builder.build();
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        // A unique URI per application context, so parallel contexts never share regions
+        URI uri = URI.create("urn:vending-machine:entity-cache:" + UUID.randomUUID());
+        log.info("Configured second-level cache regions: {}", properties.regions().keySet());
+        CacheManager cacheManager = provider.getCacheManager(uri, configuration);
+        regionTuner.cacheManager = cacheManager;
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheHibernateCustomizer(CacheManager entityCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    private static CacheConfiguration<Object, Object> regionConfiguration(
+            String name, EntityCacheProperties.Region region, RegionEvictionCounter evictionCounter, RegionTuner tuner) {
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(region.maxEntries()))
+                .withService(CacheEventListenerConfigurationBuilder
+                        .newEventListenerConfiguration(evictionCounter.listenerFor(name), EventType.EVICTED, EventType.EXPIRED)
+                        .unordered()
+                        .asynchronous());
+        if (tuner != null) {
+            builder = builder.withExpiry(tuner.expiryFor(name, region.timeToLive()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Applies refreshed {@link EntityCacheProperties} to the running regions: the heap size
+     * right away, the time-to-live to entries cached from then on. Regions are created
+     * with the cache manager, so added or removed regions still need a restart.
+     */
+    public static class RegionTuner {
+
+        private final Environment environment;
+        private final Map<String, AdjustableTimeToLive> expiries = new ConcurrentHashMap<>();
+        private volatile CacheManager cacheManager;
+
+        RegionTuner(Environment environment) {
+            this.environment = environment;
+        }
+
+        ExpiryPolicy<Object, Object> expiryFor(String region, Duration timeToLive) {
+            AdjustableTimeToLive expiry = new AdjustableTimeToLive(timeToLive);
+            expiries.put(region, expiry);
+            return expiry;
+        }
+
+        @EventListener
+        public void onEnvironmentChange(EnvironmentChangeEvent event) {
+            if (cacheManager == null || event.getKeys().stream().noneMatch(key -> key.startsWith("vending.cache."))) {
+                return;
+            }
+            EntityCacheProperties properties = Binder.get(environment)
+                    .bindOrCreate("vending.cache", EntityCacheProperties.class);
+            properties.regions().forEach((name, region) -> {
+                AdjustableTimeToLive expiry = expiries.get(name);
+                if (expiry == null) {
+                    log.warn("Second-level cache region {} is new, restart to create it", name);
+                    return;
+                }
+                expiry.timeToLive = region.timeToLive();
+                org.ehcache.Cache<?, ?> cache = cacheManager.getCache(name).unwrap(org.ehcache.Cache.class);
+                cache.getRuntimeConfiguration().updateResourcePools(ResourcePoolsBuilder.heap(region.maxEntries()).build());
+                log.info("Second-level cache region {}: {} entries, time-to-live {}", name, region.maxEntries(),
+                        region.timeToLive());
+            });
+        }
+    }
+
+    /**
+     * Time-to-live expiry, like {@code ExpiryPolicyBuilder.timeToLiveExpiration}, whose
+     * duration can change while the cache runs. {@code null} or zero means no expiry.
+     */
+    private static final class AdjustableTimeToLive implements ExpiryPolicy<Object, Object> {
+
+        private volatile Duration timeToLive;
+
+        AdjustableTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        @Override
+        public Duration getExpiryForCreation(Object key, Object value) {
+            Duration ttl = timeToLive;
+            return ttl == null || ttl.isZero() ? ExpiryPolicy.INFINITE : ttl;
+        }
+
+        @Override
+        public Duration getExpiryForAccess(Object key, Supplier<?> value) {
+            return null;
+        }
+
+        @Override
+        public Duration getExpiryForUpdate(Object key, Supplier<?> oldValue, Object newValue) {
+            return getExpiryForCreation(key, newValue);
+        }
+    }
+
+    /**
+     * Counts evictions and expirations per region; Hibernate statistics only see hits, misses and puts.
+     */
+    public static class RegionEvictionCounter {
+
+        private final Map<String, LongAdder> evictions = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> expirations = new ConcurrentHashMap<>();
+
+        CacheEventListener<Object, Object> listenerFor(String region) {
+            LongAdder evicted = evictions.computeIfAbsent(region, r -> new LongAdder());
+            LongAdder expired = expirations.computeIfAbsent(region, r -> new LongAdder());
+            return (CacheEvent<?, ?> event) -> {
+                if (event.getType() == EventType.EVICTED) {
+                    evicted.increment();
+                } else {
+                    expired.increment();
+                }
+            };
+        }
+
+        public long evictions(String region) {
+            LongAdder counter = evictions.get(region);
+            return counter == null ? 0 : counter.sum();
+        }
+
+        public long expirations(String region) {
+            LongAdder counter = expirations.get(region);
+            return counter == null ? 0 : counter.sum();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.flapkap.vending_machine.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Size and time-to-live of each Hibernate second-level cache region.
+ */
+@ConfigurationProperties(prefix = "vending.cache")
+public record EntityCacheProperties(Map<String, Region> regions) {
+
+    public EntityCacheProperties {
+        regions = regions == null ? Map.of() : Map.copyOf(regions);
+    }
+
+    /**
+     * @param maxEntries  heap entries kept before the least recently used are evicted
+     * @param timeToLive  how long an entry stays cached, {@code null} or zero for no expiry
+     */
+    public record Region(long maxEntries, Duration timeToLive) {
+    }
+}
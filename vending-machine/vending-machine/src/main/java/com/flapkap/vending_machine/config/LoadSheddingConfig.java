@@ -0,0 +1,39 @@
+package com.flapkap.vending_machine.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.loadshedding.LoadSheddingInterceptor;
+import com.flapkap.vending_machine.loadshedding.LoadSheddingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Adaptive concurrency limits in front of the purchase endpoints, where a slow
+ * database would otherwise queue every buyer until the clients time out.
+ */
+@Configuration
+@EnableConfigurationProperties(LoadSheddingProperties.class)
+@ConditionalOnProperty(prefix = "vending.load-shedding", name = "enabled", matchIfMissing = true)
+public class LoadSheddingConfig implements WebMvcConfigurer {
+
+    private final LoadSheddingInterceptor loadSheddingInterceptor;
+
+    public LoadSheddingConfig(LoadSheddingProperties properties, MeterRegistry meterRegistry,
+                              ObjectMapper objectMapper) {
+        this.loadSheddingInterceptor = new LoadSheddingInterceptor(properties, meterRegistry, objectMapper);
+    }
+
+    @Bean
+    public LoadSheddingInterceptor loadSheddingInterceptor() {
+        return loadSheddingInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(loadSheddingInterceptor).addPathPatterns("/api/v1/vendors/**");
+    }
+}
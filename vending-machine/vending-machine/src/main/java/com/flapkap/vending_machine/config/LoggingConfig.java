@@ -1,29 +1,39 @@
 package com.flapkap.vending_machine.config;
 
+import com.flapkap.vending_machine.accesslog.AccessLogFilter;
+import com.flapkap.vending_machine.accesslog.AccessLogProperties;
+import com.flapkap.vending_machine.accesslog.AccessLogWriter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.filter.CommonsRequestLoggingFilter;
+import org.springframework.core.Ordered;
 
 /**
  * Configuration for comprehensive logging in production environment
  */
 @Slf4j
 @Configuration
+@EnableConfigurationProperties(AccessLogProperties.class)
 public class LoggingConfig {
 
+    @Bean(destroyMethod = "close")
+    public AccessLogWriter accessLogWriter(AccessLogProperties properties) {
+        return new AccessLogWriter(properties);
+    }
+
     /**
-     * Configure request/response logging for production monitoring
+     * Sampled JSON access log, registered ahead of the security filters so that
+     * rejected requests are timed and logged too. Payloads and headers are never
+     * logged, since they may contain credentials.
      */
     @Bean
-    public CommonsRequestLoggingFilter requestLoggingFilter() {
-        CommonsRequestLoggingFilter loggingFilter = new CommonsRequestLoggingFilter();
-        loggingFilter.setIncludeClientInfo(true);
-        loggingFilter.setIncludeQueryString(true);
-        loggingFilter.setIncludePayload(false); // Don't log sensitive payload data
-        loggingFilter.setIncludeHeaders(false); // Don't log headers (may contain auth tokens)
-        loggingFilter.setMaxPayloadLength(1000);
-        loggingFilter.setAfterMessagePrefix("REQUEST DATA: ");
-        return loggingFilter;
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(
+            AccessLogWriter accessLogWriter, AccessLogProperties properties) {
+        FilterRegistrationBean<AccessLogFilter> registration =
+                new FilterRegistrationBean<>(new AccessLogFilter(accessLogWriter, properties));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
     }
 }
@@ -0,0 +1,136 @@
+package com.flapkap.vending_machine.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.flapkap.vending_machine.dto.BuyRequest;
+import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.PurchaseItem;
+import com.flapkap.vending_machine.dto.response.BuyResponse;
+import com.flapkap.vending_machine.dto.response.DepositResponse;
+import com.flapkap.vending_machine.dto.response.ResetResponse;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes {@code application/x-protobuf} for the dto records described in
+ * {@code proto/vending.proto}, using Jackson's schema-driven protobuf codec so the
+ * records need no generated message classes. A collection of a mapped record is
+ * written as the matching {@code <Message>List} message.
+ */
+public class ProtobufSchemaHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final String SCHEMA_LOCATION = "proto/vending.proto";
+
+    private final ProtobufMapper protobufMapper;
+    private final Map<Class<?>, ProtobufSchema> messageSchemas;
+    private final Map<Class<?>, ProtobufSchema> listSchemas;
+
+    public ProtobufSchemaHttpMessageConverter(ProtobufMapper protobufMapper) {
+        super(PROTOBUF);
+        this.protobufMapper = protobufMapper;
+        NativeProtobufSchema schema = loadSchema();
+        this.messageSchemas = Map.of(
+                Product.class, schema.forType("Product"),
+                PurchaseItem.class, schema.forType("PurchaseItem"),
+                BuyRequest.class, schema.forType("BuyRequest"),
+                BuyResponse.class, schema.forType("BuyResponse"),
+                DepositResponse.class, schema.forType("DepositResponse"),
+                ResetResponse.class, schema.forType("ResetResponse"));
+        this.listSchemas = Map.of(Product.class, schema.forType("ProductList"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return messageSchemas.containsKey(clazz);
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        // Whether a collection is writable depends on its element type, which only canWrite(Type, ...) sees
+        return Collection.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : super.getSupportedMediaTypes(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return schemaFor(type, contextClass) != null && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return schemaFor(type != null ? type : clazz, null) != null && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        JavaType javaType = javaType(type, contextClass);
+        ProtobufSchema schema = messageSchemas.get(javaType.getRawClass());
+        if (schema == null) {
+            throw new HttpMessageNotReadableException("No protobuf schema for " + javaType, inputMessage);
+        }
+        return protobufMapper.readerFor(javaType).with(schema).readValue(inputMessage.getBody());
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        Type targetType = type != null ? type : object.getClass();
+        ProtobufSchema schema = schemaFor(targetType, null);
+        if (schema == null) {
+            throw new HttpMessageNotWritableException("No protobuf schema for " + targetType);
+        }
+        Object message = object instanceof Collection<?> items ? new Items(items) : object;
+        protobufMapper.writer(schema).writeValue(outputMessage.getBody(), message);
+    }
+
+    @Nullable
+    private ProtobufSchema schemaFor(Type type, @Nullable Class<?> contextClass) {
+        JavaType javaType = javaType(type, contextClass);
+        if (javaType.isCollectionLikeType()) {
+            return listSchemas.get(javaType.getContentType().getRawClass());
+        }
+        return messageSchemas.get(javaType.getRawClass());
+    }
+
+    private JavaType javaType(Type type, @Nullable Class<?> contextClass) {
+        return protobufMapper.constructType(GenericTypeResolver.resolveType(type, contextClass));
+    }
+
+    private static NativeProtobufSchema loadSchema() {
+        try (InputStream in = new ClassPathResource(SCHEMA_LOCATION).getInputStream()) {
+            return ProtobufSchemaLoader.std.loadNative(in, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load " + SCHEMA_LOCATION, e);
+        }
+    }
+
+    /** Body of the {@code <Message>List} wrapper messages. */
+    private record Items(Collection<?> items) {
+    }
+}
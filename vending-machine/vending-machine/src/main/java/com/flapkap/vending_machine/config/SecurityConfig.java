@@ -1,7 +1,9 @@
 package com.flapkap.vending_machine.config;
 
+import com.flapkap.vending_machine.ratelimit.RateLimitFilter;
 import com.flapkap.vending_machine.security.JwtAuthenticationEntryPoint;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -29,6 +31,7 @@ public class SecurityConfig {
     private final JwtAuthenticationEntryPoint unauthorizedHandler;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final UserDetailsService userDetailsService;
+    private final ObjectProvider<RateLimitFilter> rateLimitFilter;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -54,12 +57,17 @@ public class SecurityConfig {
                         // Public endpoints
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/products").permitAll()
+                        // Health probes and the Prometheus scraper; other actuator endpoints are for admins
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // All other requests require authentication
                         .anyRequest().authenticated()
                 );
 
         // Add JWT filter before UsernamePasswordAuthenticationFilter
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        // Rate limits are per user, so they apply once the JWT has been checked
+        rateLimitFilter.ifAvailable(filter -> http.addFilterAfter(filter, JwtAuthenticationFilter.class));
 
         return http.build();
     }
@@ -0,0 +1,42 @@
+package com.flapkap.vending_machine.config;
+
+import com.flapkap.vending_machine.metrics.VendingMetrics;
+import com.flapkap.vending_machine.timeout.OperationTimeoutAspect;
+import com.flapkap.vending_machine.timeout.StatementCanceller;
+import com.flapkap.vending_machine.timeout.TimeoutProperties;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-operation deadlines. Only Hibernate gets its connections through the
+ * {@link StatementCanceller}; the pools stay visible to the rest of the application
+ * as they are.
+ */
+@Configuration
+@EnableConfigurationProperties(TimeoutProperties.class)
+@ConditionalOnProperty(prefix = "vending.timeouts", name = "enabled", matchIfMissing = true)
+public class TimeoutConfig {
+
+    @Bean
+    public OperationTimeoutAspect operationTimeoutAspect(TimeoutProperties properties, VendingMetrics vendingMetrics) {
+        return new OperationTimeoutAspect(properties, vendingMetrics);
+    }
+
+    @Bean(destroyMethod = "close")
+    public StatementCanceller statementCanceller(VendingMetrics vendingMetrics) {
+        return new StatementCanceller(vendingMetrics);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCancellingCustomizer(StatementCanceller statementCanceller,
+                                                                      DataSource dataSource) {
+        return properties -> properties.put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE,
+                statementCanceller.around(dataSource));
+    }
+}
@@ -0,0 +1,106 @@
+package com.flapkap.vending_machine.configclient;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.config.ConfigData;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads and writes the property sources fetched from the config server as a JSON file.
+ * Source order and config data options are kept, so a snapshot loads with the same
+ * precedence as the server response it was taken from.
+ */
+final class ConfigSnapshot {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<Source>> SOURCES = new TypeReference<>() { };
+
+    record Source(String name, Map<String, Object> properties, Set<ConfigData.Option> options) {
+    }
+
+    private ConfigSnapshot() {
+    }
+
+    static Optional<List<Source>> read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(MAPPER.readValue(file.toFile(), SOURCES));
+    }
+
+    /**
+     * Replaces the snapshot with the given config data.
+     *
+     * @return whether the snapshot changed
+     */
+    static boolean write(Path file, ConfigData data) throws IOException {
+        List<Source> sources = toSources(data);
+        if (read(file).filter(sources::equals).isPresent()) {
+            return false;
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            // The snapshot holds secrets such as the JWT signing key
+            if (temp.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            }
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), sources);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    static ConfigData toConfigData(List<Source> sources) {
+        Map<PropertySource<?>, Set<ConfigData.Option>> options = new LinkedHashMap<>();
+        for (Source source : sources) {
+            options.put(new MapPropertySource(source.name(), source.properties()), source.options());
+        }
+        return new ConfigData(options.keySet(), propertySource -> ConfigData.Options.of(
+                options.get(propertySource).toArray(ConfigData.Option[]::new)));
+    }
+
+    private static List<Source> toSources(ConfigData data) {
+        return data.getPropertySources().stream()
+                .map(propertySource -> new Source(propertySource.getName(), properties(propertySource),
+                        options(data, propertySource)))
+                .toList();
+    }
+
+    private static Map<String, Object> properties(PropertySource<?> propertySource) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        if (propertySource instanceof EnumerablePropertySource<?> enumerable) {
+            for (String name : enumerable.getPropertyNames()) {
+                Object value = enumerable.getProperty(name);
+                properties.put(name, value instanceof Number || value instanceof Boolean ? value : String.valueOf(value));
+            }
+        }
+        return properties;
+    }
+
+    private static Set<ConfigData.Option> options(ConfigData data, PropertySource<?> propertySource) {
+        Set<ConfigData.Option> options = EnumSet.noneOf(ConfigData.Option.class);
+        Arrays.stream(ConfigData.Option.values())
+                .filter(data.getOptions(propertySource)::contains)
+                .forEach(options::add);
+        return options;
+    }
+}
@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.configclient;
+
+import org.springframework.boot.BootstrapRegistry;
+import org.springframework.boot.BootstrapRegistryInitializer;
+import org.springframework.cloud.config.client.ConfigServerBootstrapper;
+
+/**
+ * Installs {@link ConfigSnapshotLoaderInterceptor} around the config server loader.
+ * Registered in {@code META-INF/spring.factories} so that it also applies to context
+ * refreshes, which resolve the imports again.
+ */
+public class ConfigSnapshotBootstrapper implements BootstrapRegistryInitializer {
+
+    @Override
+    public void initialize(BootstrapRegistry registry) {
+        new ConfigServerBootstrapper()
+                .withLoaderInterceptor(new ConfigSnapshotLoaderInterceptor())
+                .initialize(registry);
+    }
+}
@@ -0,0 +1,70 @@
+package com.flapkap.vending_machine.configclient;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.context.config.ConfigData;
+import org.springframework.cloud.config.client.ConfigServerBootstrapper;
+import org.springframework.cloud.config.client.ConfigServerConfigDataResource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Resolves the {@code configserver:} import from the local snapshot when there is one,
+ * so startup does not wait on the config server. The server is then queried in the
+ * background by {@link ConfigSnapshotRefresher}. Without a snapshot the server is
+ * queried as usual and a successful response becomes the snapshot.
+ */
+class ConfigSnapshotLoaderInterceptor implements ConfigServerBootstrapper.LoaderInterceptor {
+
+    @Override
+    public ConfigData apply(ConfigServerBootstrapper.LoadContext context) {
+        ConfigSnapshotProperties properties = context.getBinder()
+                .bindOrCreate(ConfigSnapshotProperties.PREFIX, ConfigSnapshotProperties.class);
+        Supplier<ConfigData> fetch = () -> context.getInvocation().apply(context.getLoaderContext(), context.getResource());
+        if (!properties.enabled()) {
+            return fetch.get();
+        }
+
+        ConfigServerConfigDataResource resource = context.getResource();
+        Path file = properties.file(resource.getProperties().getName(), resource.getProfiles());
+        ConfigData snapshot = load(file, fetch, resource.getLog());
+
+        // Hand the server fetch over to the application context for the background refresh
+        String beanName = PendingConfigRefresh.BEAN_NAME_PREFIX + file.getFileName();
+        context.getLoaderContext().getBootstrapContext().addCloseListener(event -> {
+            if (!event.getApplicationContext().getBeanFactory().containsSingleton(beanName)) {
+                event.getApplicationContext().getBeanFactory().registerSingleton(beanName,
+                        new PendingConfigRefresh(file, fetch, snapshot != null));
+            }
+        });
+        return snapshot != null ? snapshot : fetchAndSave(file, fetch, resource.getLog());
+    }
+
+    static ConfigData load(Path file, Supplier<ConfigData> fetch, Log log) {
+        try {
+            Optional<List<ConfigSnapshot.Source>> sources = ConfigSnapshot.read(file);
+            if (sources.isPresent()) {
+                log.info("Loading configuration from snapshot " + file + " instead of the config server");
+                return ConfigSnapshot.toConfigData(sources.get());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable config snapshot " + file, e);
+        }
+        return null;
+    }
+
+    static ConfigData fetchAndSave(Path file, Supplier<ConfigData> fetch, Log log) {
+        ConfigData data = fetch.get();
+        if (data != null && !data.getPropertySources().isEmpty()) {
+            try {
+                ConfigSnapshot.write(file, data);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not write config snapshot " + file, e);
+            }
+        }
+        return data;
+    }
+}
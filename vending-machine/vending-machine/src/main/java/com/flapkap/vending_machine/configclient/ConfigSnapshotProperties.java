@@ -0,0 +1,27 @@
+package com.flapkap.vending_machine.configclient;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Local copy of the configuration last fetched from the config server. These are read
+ * while the config server import is resolved, so they must be set in
+ * {@code application.properties}, the command line or the environment.
+ *
+ * @param enabled   boot from the snapshot when one exists, and keep it up to date
+ * @param directory where snapshots are written, one file per application name and profiles
+ */
+@ConfigurationProperties(prefix = ConfigSnapshotProperties.PREFIX)
+public record ConfigSnapshotProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("config-snapshot") Path directory
+) {
+
+    public static final String PREFIX = "vending.config.snapshot";
+
+    Path file(String application, String profiles) {
+        return directory.resolve(application + "-" + profiles.replace(',', '_') + ".json");
+    }
+}
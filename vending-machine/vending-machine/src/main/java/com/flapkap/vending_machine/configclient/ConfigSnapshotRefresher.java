@@ -0,0 +1,97 @@
+package com.flapkap.vending_machine.configclient;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.config.ConfigData;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * After an application started from its config snapshots is ready, queries the config
+ * server on a background thread. Changed responses replace the snapshots and are applied
+ * with a context refresh, which rebinds configuration properties. Changes reported later
+ * by {@link ConfigWatcher} are applied the same way.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfigSnapshotRefresher {
+
+    private final ObjectProvider<PendingConfigRefresh> pendingRefreshes;
+    private final ObjectProvider<ContextRefresher> contextRefresher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshInBackground() {
+        List<PendingConfigRefresh> pending = pendingRefreshes.stream().toList();
+        if (pending.stream().noneMatch(PendingConfigRefresh::fromSnapshot)) {
+            return;
+        }
+        Thread thread = new Thread(() -> refresh(pending), "config-snapshot-refresh");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Applies a change the config server reported: updates the snapshots from the server
+     * and refreshes the context, or only refreshes it when snapshots are off.
+     */
+    public void refreshNow() {
+        List<PendingConfigRefresh> pending = pendingRefreshes.stream().toList();
+        if (!pending.isEmpty()) {
+            refresh(pending);
+            return;
+        }
+        ContextRefresher refresher = contextRefresher.getIfAvailable();
+        if (refresher != null) {
+            log.info("Refreshed {}", refresher.refresh());
+        }
+    }
+
+    synchronized void refresh(List<PendingConfigRefresh> pending) {
+        boolean changed = false;
+        for (PendingConfigRefresh refresh : pending) {
+            changed |= refresh(refresh);
+        }
+        if (!changed) {
+            return;
+        }
+
+        ContextRefresher refresher = contextRefresher.getIfAvailable();
+        if (refresher == null) {
+            log.info("Config snapshots updated, restart to apply them");
+            return;
+        }
+        Set<String> keys = refresher.refresh();
+        log.info("Config snapshots updated, refreshed {}", keys);
+    }
+
+    private boolean refresh(PendingConfigRefresh pending) {
+        ConfigData data;
+        try {
+            data = pending.fetch().get();
+        } catch (RuntimeException e) {
+            log.warn("Config server refresh failed, keeping the snapshot {}", pending.file(), e);
+            return false;
+        }
+        if (data == null || data.getPropertySources().isEmpty()) {
+            log.warn("Config server unavailable, keeping the snapshot {}", pending.file());
+            return false;
+        }
+
+        try {
+            boolean changed = ConfigSnapshot.write(pending.file(), data);
+            log.debug("Config snapshot {} {}", pending.file(), changed ? "updated" : "is up to date");
+            return changed;
+        } catch (IOException e) {
+            log.warn("Could not write config snapshot {}", pending.file(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.flapkap.vending_machine.configclient;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Long-poll of the config server's {@code /watch} endpoint.
+ *
+ * @param enabled      watch for changes while the application runs
+ * @param timeout      how long the server holds each request when nothing changes
+ * @param retryBackoff wait after a failed request before trying again
+ */
+@ConfigurationProperties(prefix = "vending.config.watch")
+public record ConfigWatchProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("30s") Duration timeout,
+        @DefaultValue("5s") Duration retryBackoff
+) {
+}
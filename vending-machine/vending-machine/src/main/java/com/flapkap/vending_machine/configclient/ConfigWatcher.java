@@ -0,0 +1,152 @@
+package com.flapkap.vending_machine.configclient;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.config.client.ConfigClientProperties;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.stream.StreamSupport;
+
+/**
+ * Holds a long-poll request open on the config server's {@code /watch} endpoint and
+ * refreshes the application when the server reports a changed environment. The first
+ * answer only records the current version; later ones update the snapshots and refresh
+ * the context through {@link ConfigSnapshotRefresher}. Needs no message broker.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ConfigWatchProperties.class)
+@RequiredArgsConstructor
+public class ConfigWatcher {
+
+    private static final String CONFIG_SERVER_SOURCE_PREFIX = "configserver:";
+
+    private final ConfigWatchProperties properties;
+    private final ObjectProvider<ConfigClientProperties> clientProperties;
+    private final ObjectProvider<PendingConfigRefresh> pendingRefreshes;
+    private final ConfigSnapshotRefresher refresher;
+    private final ConfigurableEnvironment environment;
+
+    private volatile Thread thread;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ConfigClientProperties client = clientProperties.getIfAvailable();
+        if (!properties.enabled() || client == null || !client.isEnabled() || !usesConfigServer()) {
+            return;
+        }
+        URI uri = watchUri(client);
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(client.getRequestConnectTimeout() > 0
+                        ? client.getRequestConnectTimeout() : 10_000))
+                .build();
+        Thread watcher = new Thread(() -> watch(http, uri, authorization(client)), "config-watch");
+        watcher.setDaemon(true);
+        thread = watcher;
+        watcher.start();
+        log.info("Watching {} for configuration changes", uri);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        Thread watcher = thread;
+        thread = null;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    void watch(HttpClient http, URI uri, String authorization) {
+        String etag = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                        // Room for the server to answer after holding the request
+                        .timeout(properties.timeout().plusSeconds(10))
+                        .GET();
+                if (etag != null) {
+                    request.header(HttpHeaders.IF_NONE_MATCH, etag);
+                }
+                if (authorization != null) {
+                    request.header(HttpHeaders.AUTHORIZATION, authorization);
+                }
+                HttpResponse<Void> response = http.send(request.build(), HttpResponse.BodyHandlers.discarding());
+
+                if (response.statusCode() == 200) {
+                    String current = response.headers().firstValue(HttpHeaders.ETAG).orElse(null);
+                    if (etag != null && !etag.equals(current)) {
+                        log.info("Configuration changed on the config server, refreshing");
+                        refresher.refreshNow();
+                    }
+                    etag = current;
+                } else if (response.statusCode() != 304) {
+                    log.debug("Config watch answered {}, retrying in {}", response.statusCode(), properties.retryBackoff());
+                    if (!sleep(properties.retryBackoff())) {
+                        return;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Config watch failed, retrying in {}", properties.retryBackoff(), e);
+                if (!sleep(properties.retryBackoff())) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private boolean usesConfigServer() {
+        return pendingRefreshes.stream().findAny().isPresent()
+                || StreamSupport.stream(environment.getPropertySources().spliterator(), false)
+                .map(PropertySource::getName)
+                .anyMatch(name -> name.startsWith(CONFIG_SERVER_SOURCE_PREFIX));
+    }
+
+    private URI watchUri(ConfigClientProperties client) {
+        String profiles = environment.getActiveProfiles().length > 0
+                ? String.join(",", environment.getActiveProfiles())
+                : String.join(",", environment.getDefaultProfiles());
+        StringBuilder uri = new StringBuilder(StringUtils.trimTrailingCharacter(client.getUri()[0], '/'))
+                .append("/watch/").append(client.getName()).append('/').append(profiles);
+        if (StringUtils.hasText(client.getLabel())) {
+            uri.append('/').append(client.getLabel().replace("/", "(_)"));
+        }
+        return URI.create(uri.append("?timeout=").append(properties.timeout().toMillis()).toString());
+    }
+
+    private static String authorization(ConfigClientProperties client) {
+        ConfigClientProperties.Credentials credentials = client.getCredentials(0);
+        if (!StringUtils.hasText(credentials.getUsername()) || !StringUtils.hasText(credentials.getPassword())) {
+            return null;
+        }
+        String token = credentials.getUsername() + ":" + credentials.getPassword();
+        return "Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
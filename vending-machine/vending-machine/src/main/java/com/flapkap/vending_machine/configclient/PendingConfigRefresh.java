@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.configclient;
+
+import org.springframework.boot.context.config.ConfigData;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * A config server fetch captured while the import was resolved, registered as a bean
+ * once the application context exists. There is one per resolved resource, i.e. one for
+ * the default profile and one per active profile.
+ *
+ * @param file         snapshot the fetched configuration is written to
+ * @param fetch        queries the config server; returns {@code null} when it is unavailable
+ * @param fromSnapshot whether startup used the snapshot instead of the server
+ */
+record PendingConfigRefresh(Path file, Supplier<ConfigData> fetch, boolean fromSnapshot) {
+
+    static final String BEAN_NAME_PREFIX = "pendingConfigRefresh.";
+}
@@ -0,0 +1,25 @@
+package com.flapkap.vending_machine.controller;
+
+import com.flapkap.vending_machine.dto.response.DataSourceStats;
+import com.flapkap.vending_machine.service.DataSourceStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/datasources")
+@RequiredArgsConstructor
+public class DataSourceStatisticsController {
+
+    private final DataSourceStatisticsService dataSourceStatisticsService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DataSourceStats> getDataSourceStatistics() {
+        return ResponseEntity.ok(dataSourceStatisticsService.getDataSourceStatistics());
+    }
+}
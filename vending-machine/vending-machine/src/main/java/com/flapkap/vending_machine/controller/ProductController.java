@@ -1,11 +1,11 @@
 package com.flapkap.vending_machine.controller;
 
 import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.ProductPatch;
 import com.flapkap.vending_machine.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -19,20 +19,20 @@ public class ProductController {
 
     private final ProductService productService;
 
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping
     public ResponseEntity<List<Product>> getAllProducts() {
         List<Product> products = productService.getAllProducts();
         return ResponseEntity.ok(products);
     }
 
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping
     @PreAuthorize("hasRole('SELLER')")
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
         Product createdProduct = productService.createProduct(product);
         return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
     }
 
-    @PutMapping(value = "/{productName}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PutMapping("/{productName}")
     @PreAuthorize("hasRole('SELLER')")
     public ResponseEntity<Product> updateProduct(
             @PathVariable String productName,
@@ -41,10 +41,33 @@ public class ProductController {
         return ResponseEntity.ok(updatedProduct);
     }
 
+    @PatchMapping("/{productName}")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<Void> patchProduct(
+            @PathVariable String productName,
+            @Valid @RequestBody ProductPatch patch) {
+        productService.patchProduct(productName, patch);
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{productName}")
     @PreAuthorize("hasRole('SELLER')")
     public ResponseEntity<Void> deleteProduct(@PathVariable String productName) {
         productService.deleteProduct(productName);
         return ResponseEntity.noContent().build();
     }
+
+    @DeleteMapping(params = "names")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<Void> deleteProducts(@RequestParam("names") List<String> productNames) {
+        productService.deleteProducts(productNames);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/sellers/{sellerId}")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<Void> deleteProductsBySeller(@PathVariable Long sellerId) {
+        productService.deleteProductsBySeller(sellerId);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,35 @@
+package com.flapkap.vending_machine.controller;
+
+import com.flapkap.vending_machine.dto.response.SlowRequestTrace;
+import com.flapkap.vending_machine.service.SlowRequestService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin/slow-requests")
+@RequiredArgsConstructor
+public class SlowRequestController {
+
+    private final SlowRequestService slowRequestService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SlowRequestTrace>> getSlowRequests() {
+        return ResponseEntity.ok(slowRequestService.getSlowRequests());
+    }
+
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> clearSlowRequests() {
+        slowRequestService.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.flapkap.vending_machine.controller;
+
+import com.flapkap.vending_machine.dto.response.StartupReport;
+import com.flapkap.vending_machine.service.StartupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/startup")
+@RequiredArgsConstructor
+public class StartupController {
+
+    private final StartupService startupService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StartupReport> getStartupReport(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(startupService.getReport(limit));
+    }
+}
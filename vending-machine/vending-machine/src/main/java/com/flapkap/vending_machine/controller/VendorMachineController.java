@@ -2,6 +2,9 @@ package com.flapkap.vending_machine.controller;
 
 import com.flapkap.vending_machine.dto.BuyRequest;
 import com.flapkap.vending_machine.dto.DepositRequest;
+import com.flapkap.vending_machine.dto.response.BuyResponse;
+import com.flapkap.vending_machine.dto.response.DepositResponse;
+import com.flapkap.vending_machine.dto.response.ResetResponse;
 import com.flapkap.vending_machine.service.VendorMachineService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,22 +23,22 @@ public class VendorMachineController {
 
     @PostMapping("/deposit")
     @PreAuthorize("hasRole('BUYER')")
-    public ResponseEntity<String> deposit(@Valid @RequestBody DepositRequest request) {
-        String response = vendorMachineService.deposit(request);
+    public ResponseEntity<DepositResponse> deposit(@Valid @RequestBody DepositRequest request) {
+        DepositResponse response = vendorMachineService.deposit(request);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/buy")
     @PreAuthorize("hasRole('BUYER')")
-    public ResponseEntity<String> buy(@Valid @RequestBody BuyRequest request) {
-        String response = vendorMachineService.buy(request);
+    public ResponseEntity<BuyResponse> buy(@Valid @RequestBody BuyRequest request) {
+        BuyResponse response = vendorMachineService.buy(request);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/reset")
     @PreAuthorize("hasRole('BUYER')")
-    public ResponseEntity<String> reset() {
-        String response = vendorMachineService.reset();
+    public ResponseEntity<ResetResponse> reset() {
+        ResetResponse response = vendorMachineService.reset();
         return ResponseEntity.ok(response);
     }
 }
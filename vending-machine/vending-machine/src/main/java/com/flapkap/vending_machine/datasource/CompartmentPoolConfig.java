@@ -0,0 +1,113 @@
+package com.flapkap.vending_machine.datasource;
+
+import com.flapkap.vending_machine.bulkhead.Compartment;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A connection pool per bulkhead compartment, on the primary database. Only active
+ * with {@code vending.bulkhead.partition-pools=true}. With a replica configured, the
+ * partitions take the place of the primary pool in {@link ReadWriteDataSourceConfig};
+ * without one, this configuration defines the shared pool itself.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "vending.bulkhead", name = "partition-pools", havingValue = "true")
+public class CompartmentPoolConfig {
+
+    public static final String POOL_PREFIX = "vending.bulkhead.pools";
+
+    @Bean
+    @ConfigurationProperties(POOL_PREFIX + ".catalog")
+    public HikariDataSource catalogDataSource(DataSourceProperties dataSourceProperties) {
+        return pool(dataSourceProperties, Compartment.CATALOG);
+    }
+
+    @Bean
+    @ConfigurationProperties(POOL_PREFIX + ".auth")
+    public HikariDataSource authDataSource(DataSourceProperties dataSourceProperties) {
+        return pool(dataSourceProperties, Compartment.AUTH);
+    }
+
+    @Bean
+    @ConfigurationProperties(POOL_PREFIX + ".purchases")
+    public HikariDataSource purchasesDataSource(DataSourceProperties dataSourceProperties) {
+        return pool(dataSourceProperties, Compartment.PURCHASES);
+    }
+
+    @Bean
+    public CompartmentPools compartmentPools(
+            @Qualifier("catalogDataSource") DataSource catalogDataSource,
+            @Qualifier("authDataSource") DataSource authDataSource,
+            @Qualifier("purchasesDataSource") DataSource purchasesDataSource) {
+        return new CompartmentPools(Map.of(
+                Compartment.CATALOG, catalogDataSource,
+                Compartment.AUTH, authDataSource,
+                Compartment.PURCHASES, purchasesDataSource
+        ));
+    }
+
+    private static HikariDataSource pool(DataSourceProperties dataSourceProperties, Compartment compartment) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(compartment.key());
+        return dataSource;
+    }
+
+    /**
+     * The shared pool, for requests outside the compartments and for background work.
+     * Spring Boot no longer creates it once the partitions exist. Component scanning
+     * finds this class on its own, so it repeats the outer condition.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "vending.bulkhead", name = "partition-pools", havingValue = "true")
+    @ConditionalOnExpression("'${vending.datasource.replica.url:}'.isEmpty()")
+    static class SharedPoolConfig {
+
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            dataSource.setPoolName(ReadWriteDataSourceConfig.PRIMARY_POOL);
+            return dataSource;
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                     CompartmentPools compartmentPools) {
+            return compartmentPools.around(primaryDataSource);
+        }
+    }
+
+    /**
+     * The partition pools by compartment.
+     */
+    public record CompartmentPools(Map<Compartment, DataSource> pools) {
+
+        /**
+         * @return a data source routing to the pool of the current compartment, and to
+         * {@code shared} outside any compartment
+         */
+        public DataSource around(DataSource shared) {
+            CompartmentRoutingDataSource routing = new CompartmentRoutingDataSource();
+            routing.setTargetDataSources(new HashMap<>(pools));
+            routing.setDefaultTargetDataSource(shared);
+            routing.afterPropertiesSet();
+            return routing;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.flapkap.vending_machine.datasource;
+
+import com.flapkap.vending_machine.bulkhead.Compartment;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections from the pool of the compartment the current request runs in,
+ * and from the shared pool outside any compartment, so a burst of catalog reads or
+ * logins cannot take the connections purchases need.
+ */
+public class CompartmentRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Compartment.current();
+    }
+}
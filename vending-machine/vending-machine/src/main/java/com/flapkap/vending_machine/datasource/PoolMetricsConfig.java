@@ -0,0 +1,40 @@
+package com.flapkap.vending_machine.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Attaches the acquire-time tracker to every Hikari pool before it starts, together
+ * with Micrometer's Hikari metrics when a meter registry is present. Spring Boot's
+ * own Hikari binding is skipped for pools that already have a tracker factory.
+ */
+@Configuration
+public class PoolMetricsConfig {
+
+    @Bean
+    public static PoolMetricsTrackerFactory poolMetricsTrackerFactory() {
+        return new PoolMetricsTrackerFactory();
+    }
+
+    @Bean
+    public static BeanPostProcessor poolMetricsTrackerPostProcessor(
+            PoolMetricsTrackerFactory poolMetricsTrackerFactory, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari && hikari.getMetricsTrackerFactory() == null
+                        && hikari.getMetricRegistry() == null) {
+                    MeterRegistry registry = meterRegistry.getIfAvailable();
+                    hikari.setMetricsTrackerFactory(registry == null ? poolMetricsTrackerFactory
+                            : poolMetricsTrackerFactory.alongside(new MicrometerMetricsTrackerFactory(registry)));
+                }
+                return bean;
+            }
+        };
+    }
+}
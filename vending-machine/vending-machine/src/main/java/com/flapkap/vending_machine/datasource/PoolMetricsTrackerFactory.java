@@ -0,0 +1,100 @@
+package com.flapkap.vending_machine.datasource;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long callers wait to acquire a connection, per Hikari pool. Can run
+ * alongside another tracker factory, such as Micrometer's, via {@link #alongside}.
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final Map<String, AcquireTimes> acquireTimes = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        AcquireTimes times = acquireTimes.computeIfAbsent(poolName, name -> new AcquireTimes());
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                times.record(elapsedAcquiredNanos);
+            }
+        };
+    }
+
+    /**
+     * A factory whose trackers feed both this factory and {@code other}, since Hikari
+     * accepts only one tracker factory per pool.
+     */
+    public MetricsTrackerFactory alongside(MetricsTrackerFactory other) {
+        return (poolName, poolStats) -> {
+            IMetricsTracker own = create(poolName, poolStats);
+            IMetricsTracker delegate = other.create(poolName, poolStats);
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                    delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+                }
+
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    own.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                    delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    delegate.recordConnectionTimeout();
+                }
+
+                @Override
+                public void close() {
+                    delegate.close();
+                }
+            };
+        };
+    }
+
+    public AcquireTimes acquireTimes(String poolName) {
+        return acquireTimes.getOrDefault(poolName, AcquireTimes.NONE);
+    }
+
+    public static class AcquireTimes {
+
+        static final AcquireTimes NONE = new AcquireTimes();
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public double meanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / (n * 1_000_000.0);
+        }
+
+        public double maxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.flapkap.vending_machine.datasource;
+
+import com.flapkap.vending_machine.bulkhead.Compartment;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Applies changed Hikari settings to the running pools after a configuration refresh.
+ * Spring Cloud never rebinds a {@link HikariDataSource}, and a started pool only accepts
+ * the settings of its {@link HikariConfigMXBean}: sizes and timeouts. Anything else,
+ * such as the JDBC URL, still needs a restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PoolSettingsRefresher {
+
+    static final String PRIMARY_PREFIX = "spring.datasource.hikari";
+    static final String REPLICA_PREFIX = "vending.datasource.replica.hikari";
+
+    private final ObjectProvider<HikariDataSource> pools;
+    private final Environment environment;
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        Binder binder = Binder.get(environment);
+        pools.forEach(pool -> apply(binder, pool));
+    }
+
+    private void apply(Binder binder, HikariDataSource pool) {
+        String prefix = prefix(pool.getPoolName());
+        HikariConfigMXBean config = pool.getHikariConfigMXBean();
+        // Maximum first, so a raised minimum is not capped by the old maximum
+        apply(binder, pool, prefix + ".maximum-pool-size", Integer.class, config::getMaximumPoolSize, config::setMaximumPoolSize);
+        apply(binder, pool, prefix + ".minimum-idle", Integer.class, config::getMinimumIdle, config::setMinimumIdle);
+        apply(binder, pool, prefix + ".connection-timeout", Long.class, config::getConnectionTimeout, config::setConnectionTimeout);
+        apply(binder, pool, prefix + ".validation-timeout", Long.class, config::getValidationTimeout, config::setValidationTimeout);
+        apply(binder, pool, prefix + ".idle-timeout", Long.class, config::getIdleTimeout, config::setIdleTimeout);
+        apply(binder, pool, prefix + ".max-lifetime", Long.class, config::getMaxLifetime, config::setMaxLifetime);
+        apply(binder, pool, prefix + ".leak-detection-threshold", Long.class,
+                config::getLeakDetectionThreshold, config::setLeakDetectionThreshold);
+    }
+
+    private static String prefix(String poolName) {
+        if (ReadWriteDataSourceConfig.REPLICA_POOL.equals(poolName)) {
+            return REPLICA_PREFIX;
+        }
+        for (Compartment compartment : Compartment.values()) {
+            if (compartment.key().equals(poolName)) {
+                return CompartmentPoolConfig.POOL_PREFIX + "." + poolName;
+            }
+        }
+        return PRIMARY_PREFIX;
+    }
+
+    private static <T> void apply(Binder binder, HikariDataSource pool, String name, Class<T> type,
+                                  Supplier<T> current, Consumer<T> setter) {
+        binder.bind(name, type).ifBound(value -> {
+            if (!value.equals(current.get())) {
+                setter.accept(value);
+                log.info("Pool {}: {} is now {}", pool.getPoolName(), name, value);
+            }
+        });
+    }
+}
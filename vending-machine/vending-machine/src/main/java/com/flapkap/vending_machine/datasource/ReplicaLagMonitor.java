@@ -0,0 +1,90 @@
+package com.flapkap.vending_machine.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically probes the replica and marks it unusable while it is unreachable or
+ * lagging more than the configured maximum, so reads fall back to the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private final DataSource replica;
+    private final ReplicaRoutingProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean replicaUsable = true;
+    private volatile long lastLagSeconds;
+
+    public ReplicaLagMonitor(DataSource replica, ReplicaRoutingProperties properties) {
+        this.replica = replica;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.lagCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    /**
+     * Probes the replica once and updates the routing decision.
+     */
+    public void check() {
+        boolean usable;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (properties.lagQuery() == null) {
+                usable = connection.isValid(1);
+            } else {
+                try (ResultSet rs = statement.executeQuery(properties.lagQuery())) {
+                    // No row or a NULL lag (e.g. Seconds_Behind_Source once replication
+                    // stopped) means replication is not running, treat as lagging
+                    long lag = Long.MAX_VALUE;
+                    if (rs.next()) {
+                        lag = rs.getLong(1);
+                        if (rs.wasNull()) {
+                            lag = Long.MAX_VALUE;
+                        }
+                    }
+                    lastLagSeconds = lag;
+                }
+                usable = lastLagSeconds <= properties.maxLag().toSeconds();
+            }
+        } catch (Exception e) {
+            log.debug("Replica probe failed", e);
+            usable = false;
+        }
+
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Replica is back in sync, routing read-only transactions to it");
+            } else {
+                log.warn("Replica unreachable or lagging ({}s), routing reads to the primary", lastLagSeconds);
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
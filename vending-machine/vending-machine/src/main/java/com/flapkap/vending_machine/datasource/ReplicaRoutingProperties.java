@@ -0,0 +1,22 @@
+package com.flapkap.vending_machine.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Replica lag guard settings. The replica connection itself is configured under
+ * {@code vending.datasource.replica.*} like {@code spring.datasource.*}.
+ *
+ * @param maxLag            reads fall back to the primary once the replica is further behind than this
+ * @param lagCheckInterval  how often the replica lag is probed
+ * @param lagQuery          query returning the replica lag in seconds; when unset only reachability is checked
+ */
+@ConfigurationProperties(prefix = "vending.datasource.routing")
+public record ReplicaRoutingProperties(
+        @DefaultValue("5s") Duration maxLag,
+        @DefaultValue("5s") Duration lagCheckInterval,
+        String lagQuery
+) {
+}
@@ -0,0 +1,25 @@
+package com.flapkap.vending_machine.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Partial product update. Only non-null fields are written.
+ */
+public record ProductPatch(
+        @Min(value = 0, message = "Amount available cannot be negative")
+        Integer amountAvailable,
+
+        @Positive(message = "Cost must be a positive number")
+        Integer cost,
+
+        @Pattern(regexp = ".*\\S.*", message = "Product name cannot be blank")
+        String productName,
+
+        Long sellerId
+) {
+    public boolean isEmpty() {
+        return amountAvailable == null && cost == null && productName == null && sellerId == null;
+    }
+}
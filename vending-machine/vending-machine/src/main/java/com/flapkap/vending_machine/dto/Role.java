@@ -1,5 +1,19 @@
 package com.flapkap.vending_machine.dto;
 
 public enum Role {
-    SELLER,BUYER
+    SELLER,BUYER,
+    // Operators: recordings, traces and pool statistics. Granted in the database only
+    ADMIN;
+
+    // Bit of this role in the users.roles column; tied to the ordinal, so only append new roles
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @return whether a client may ask for this role at signup or in a user update
+     */
+    public boolean requestable() {
+        return this != ADMIN;
+    }
 }
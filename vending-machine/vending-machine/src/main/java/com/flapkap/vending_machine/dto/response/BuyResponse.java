@@ -1,8 +1,16 @@
 package com.flapkap.vending_machine.dto.response;
 
+import com.flapkap.vending_machine.dto.PurchaseItem;
+
 import java.util.List;
 
+/**
+ * @param products the items bought, as requested
+ * @param change   cents handed back; the buyer's deposit is empty afterwards
+ * @param coins    the change as coins, largest first
+ */
 public record BuyResponse (int totalSpent,
-                           List<String> products,
-                           int change) {
+                           List<PurchaseItem> products,
+                           int change,
+                           List<Integer> coins) {
 }
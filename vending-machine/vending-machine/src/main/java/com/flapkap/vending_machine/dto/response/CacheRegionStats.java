@@ -0,0 +1,11 @@
+package com.flapkap.vending_machine.dto.response;
+
+public record CacheRegionStats(
+        String region,
+        long hits,
+        long misses,
+        long puts,
+        long evictions,
+        long expirations
+) {
+}
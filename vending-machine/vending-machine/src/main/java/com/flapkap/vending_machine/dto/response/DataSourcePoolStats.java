@@ -0,0 +1,13 @@
+package com.flapkap.vending_machine.dto.response;
+
+public record DataSourcePoolStats(
+        String pool,
+        int active,
+        int idle,
+        int pending,
+        int total,
+        long acquireCount,
+        double acquireMeanMillis,
+        double acquireMaxMillis
+) {
+}
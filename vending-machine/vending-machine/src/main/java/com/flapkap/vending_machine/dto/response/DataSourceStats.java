@@ -0,0 +1,11 @@
+package com.flapkap.vending_machine.dto.response;
+
+import java.util.List;
+
+public record DataSourceStats(
+        boolean replicaRouting,
+        boolean replicaUsable,
+        long replicaLagSeconds,
+        List<DataSourcePoolStats> pools
+) {
+}
@@ -0,0 +1,9 @@
+package com.flapkap.vending_machine.dto.response;
+
+/**
+ * @param deposited cents added by this coin
+ * @param deposit   the buyer's balance afterwards
+ */
+public record DepositResponse(int deposited,
+                              int deposit) {
+}
@@ -0,0 +1,14 @@
+package com.flapkap.vending_machine.dto.response;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public record FlightRecordingInfo(
+        long id,
+        String name,
+        String state,
+        Instant startTime,
+        Duration duration,
+        long sizeBytes
+) {
+}
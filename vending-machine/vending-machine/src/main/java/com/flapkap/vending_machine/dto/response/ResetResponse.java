@@ -0,0 +1,11 @@
+package com.flapkap.vending_machine.dto.response;
+
+import java.util.List;
+
+/**
+ * @param returned cents handed back; the buyer's deposit is empty afterwards
+ * @param coins    the returned cents as coins, largest first
+ */
+public record ResetResponse(int returned,
+                            List<Integer> coins) {
+}
@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.dto.response;
+
+import java.time.Instant;
+import java.util.List;
+
+public record SlowRequestTrace(
+        Instant timestamp,
+        String method,
+        String path,
+        String handler,
+        String outcome,
+        int status,
+        double durationMillis,
+        double statementMillis,
+        double connectionWaitMillis,
+        int statementCount,
+        int droppedStatements,
+        List<SqlStatementTrace> statements
+) {
+}
@@ -0,0 +1,9 @@
+package com.flapkap.vending_machine.dto.response;
+
+public record SqlStatementTrace(
+        String sql,
+        int bindCount,
+        int executions,
+        double durationMillis
+) {
+}
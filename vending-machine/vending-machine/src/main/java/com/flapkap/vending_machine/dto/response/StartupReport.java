@@ -0,0 +1,24 @@
+package com.flapkap.vending_machine.dto.response;
+
+import java.util.List;
+
+/**
+ * @param slowestBeans bean instantiations with the most time of their own, slowest first;
+ *                     empty unless the application was launched with a buffering startup
+ * @param warmup       steps run before the instance reported ready, in order
+ */
+public record StartupReport(
+        List<BeanInitialization> slowestBeans,
+        List<WarmupStep> warmup
+) {
+
+    /**
+     * @param selfMillis  time spent on this bean alone
+     * @param totalMillis including the beans it caused to be created
+     */
+    public record BeanInitialization(String bean, String type, double selfMillis, double totalMillis) {
+    }
+
+    public record WarmupStep(String step, int iterations, double durationMillis, String outcome) {
+    }
+}
@@ -1,23 +1,37 @@
 package com.flapkap.vending_machine.entity;
 
+import com.flapkap.vending_machine.config.EntityCacheConfig;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.PRODUCTS_REGION)
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "products")
+@Table(
+        name = "products",
+        uniqueConstraints = @UniqueConstraint(name = "uk_products_product_name", columnNames = "product_name"),
+        indexes = @Index(name = "idx_products_seller_id", columnList = "seller_id")
+)
 public class ProductEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,12 +44,29 @@ public class ProductEntity {
     @Column(nullable = false)
     private int cost;
 
+    // Renamed by product updates, hence mutable
+    @NaturalId(mutable = true)
     @Column(nullable = false)
     private String productName;
 
+    // Kept out of equals/hashCode/toString so that hashing or logging a product does not load its seller
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "seller_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private UserEntity sellerId;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    public ProductEntity(Long id, int amountAvailable, int cost, String productName, UserEntity sellerId) {
+        this.id = id;
+        this.amountAvailable = amountAvailable;
+        this.cost = cost;
+        this.productName = productName;
+        this.sellerId = sellerId;
+    }
 }
 
 
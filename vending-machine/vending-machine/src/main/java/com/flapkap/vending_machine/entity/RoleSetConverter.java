@@ -0,0 +1,61 @@
+package com.flapkap.vending_machine.entity;
+
+import com.flapkap.vending_machine.dto.Role;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stores a role set as a single bitmask column. Every possible mask maps to
+ * a shared immutable set, so loading a user does not allocate one.
+ */
+@Converter
+public class RoleSetConverter implements AttributeConverter<Set<Role>, Integer> {
+
+    private static final List<Set<Role>> SETS_BY_MASK = new ArrayList<>();
+
+    static {
+        Role[] roles = Role.values();
+        for (int mask = 0; mask < 1 << roles.length; mask++) {
+            EnumSet<Role> set = EnumSet.noneOf(Role.class);
+            for (Role role : roles) {
+                if ((mask & role.mask()) != 0) {
+                    set.add(role);
+                }
+            }
+            SETS_BY_MASK.add(Collections.unmodifiableSet(set));
+        }
+    }
+
+    public static int toMask(Set<Role> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (Role role : roles) {
+                mask |= role.mask();
+            }
+        }
+        return mask;
+    }
+
+    public static Set<Role> fromMask(int mask) {
+        if (mask < 0 || mask >= SETS_BY_MASK.size()) {
+            throw new IllegalArgumentException("Unknown role mask: " + mask);
+        }
+        return SETS_BY_MASK.get(mask);
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<Role> roles) {
+        return toMask(roles);
+    }
+
+    @Override
+    public Set<Role> convertToEntityAttribute(Integer mask) {
+        return fromMask(mask == null ? 0 : mask);
+    }
+}
@@ -1,16 +1,19 @@
 package com.flapkap.vending_machine.entity;
 
+import com.flapkap.vending_machine.config.EntityCacheConfig;
 import com.flapkap.vending_machine.dto.Role;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.USERS_REGION)
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "users")
 public class UserEntity {
@@ -28,8 +31,20 @@ public class UserEntity {
     @Column(nullable = false)
     private int deposit;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "role")
+    // Bitmask column, see RoleSetConverter
+    @Convert(converter = RoleSetConverter.class)
+    @Column(nullable = false)
     private Set<Role> roles;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    public UserEntity(Long id, String username, String password, int deposit, Set<Role> roles) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.deposit = deposit;
+        this.roles = roles;
+    }
 }
@@ -0,0 +1,10 @@
+package com.flapkap.vending_machine.exception;
+
+/**
+ * Why a vending operation was refused, sent to the client as {@code code}.
+ */
+public enum ErrorCode {
+    INVALID_COIN,
+    INSUFFICIENT_STOCK,
+    INSUFFICIENT_FUNDS
+}
@@ -1,23 +1,60 @@
 package com.flapkap.vending_machine.exception;
 
 import io.jsonwebtoken.ExpiredJwtException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Maps exceptions to error responses. Bodies that do not depend on the request are built
+ * once and shared; they are immutable.
+ */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Map<String, String> INVALID_CREDENTIALS = body("Invalid username or password", null);
+    private static final Map<String, String> FORBIDDEN =
+            body("Forbidden", "You don't have permission to access this resource");
+    private static final Map<String, String> TOKEN_EXPIRED =
+            body("Token expired", "Your authentication token has expired. Please log in again.");
+    private static final Map<String, String> BODY_MISSING =
+            body("Invalid request body", "Request body is required but was not provided");
+    private static final Map<String, String> BODY_NOT_JSON =
+            body("Invalid request body", "Invalid JSON format in request body");
+    private static final Map<String, String> BODY_MALFORMED =
+            body("Invalid request body", "Request body is missing or malformed");
+    private static final Map<String, String> DATA_CONFLICT =
+            body("Conflict", "The request conflicts with existing data");
+    private static final Map<String, String> CONCURRENT_UPDATE =
+            body("Conflict", "The request collided with concurrent updates, please retry");
+    private static final Map<String, String> TIMEOUT =
+            body("Timeout", "The request did not complete in time and was rolled back, please retry");
+    private static final Map<String, String> UNEXPECTED =
+            body("An unexpected error occurred", "The request could not be processed");
+    // The exception messages carry amounts for the logs; clients get one fixed body per code
+    private static final Map<ErrorCode, Map<String, String>> REFUSALS = new EnumMap<>(Map.of(
+            ErrorCode.INVALID_COIN, refusal(ErrorCode.INVALID_COIN, "Only 5, 10, 20, 50, or 100 cent coins are accepted"),
+            ErrorCode.INSUFFICIENT_STOCK, refusal(ErrorCode.INSUFFICIENT_STOCK, "Not enough stock for the requested products"),
+            ErrorCode.INSUFFICIENT_FUNDS, refusal(ErrorCode.INSUFFICIENT_FUNDS, "The deposit does not cover the purchase")
+    ));
+
     @ExceptionHandler(ResourceNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<String> handleResourceNotFoundException(ResourceNotFoundException ex) {
@@ -41,48 +78,70 @@ public class GlobalExceptionHandler {
     @ExceptionHandler({UsernameNotFoundException.class , BadCredentialsException.class})
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ResponseEntity<Map<String, String>> handleUserNameOrPasswordException(Exception ex) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Invalid username or password");
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+        return new ResponseEntity<>(INVALID_CREDENTIALS, HttpStatus.UNAUTHORIZED);
     }
     // Authorization Role error
     @ExceptionHandler(AccessDeniedException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ResponseEntity<Map<String, String>> handleAccessDenied(AccessDeniedException ex) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Forbidden");
-        error.put("message", "You don't have permission to access this resource");
-        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
+        return new ResponseEntity<>(FORBIDDEN, HttpStatus.FORBIDDEN);
     }
 
     @ExceptionHandler(ExpiredJwtException.class)
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ResponseEntity<Map<String, String>> handleExpiredJwtException(ExpiredJwtException ex) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Token expired");
-        error.put("message", "Your authentication token has expired. Please log in again.");
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+        return new ResponseEntity<>(TOKEN_EXPIRED, HttpStatus.UNAUTHORIZED);
     }
 
     // Handle missing or malformed request body
     @ExceptionHandler(HttpMessageNotReadableException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Map<String, String>> handleMissingRequestBody(HttpMessageNotReadableException ex) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Invalid request body");
-        
         String message = ex.getMessage();
+        Map<String, String> error;
         if (message != null && message.contains("Required request body is missing")) {
-            error.put("message", "Request body is required but was not provided");
+            error = BODY_MISSING;
         } else if (message != null && message.contains("JSON parse error")) {
-            error.put("message", "Invalid JSON format in request body");
+            error = BODY_NOT_JSON;
         } else {
-            error.put("message", "Request body is missing or malformed");
+            error = BODY_MALFORMED;
         }
         
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    // Unique or foreign key constraint rejected the write
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<Map<String, String>> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        return new ResponseEntity<>(DATA_CONFLICT, HttpStatus.CONFLICT);
+    }
+
+    // Still losing a race for the same rows after the configured retries
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<Map<String, String>> handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        return new ResponseEntity<>(CONCURRENT_UPDATE, HttpStatus.CONFLICT);
+    }
+
+    // Ran past its deadline; the statements were cancelled and nothing was written
+    @ExceptionHandler({
+            OperationTimeoutException.class,
+            QueryTimeoutException.class,
+            TransactionTimedOutException.class
+    })
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<Map<String, String>> handleTimeout(RuntimeException ex) {
+        return new ResponseEntity<>(TIMEOUT, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Refused for a business reason: sold out, not enough money, unknown coin
+    @ExceptionHandler(VendingException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Map<String, String>> handleVendingException(VendingException ex) {
+        return new ResponseEntity<>(REFUSALS.get(ex.getCode()), HttpStatus.BAD_REQUEST);
+    }
+
     // Handle generic exceptions
     @ExceptionHandler({
             IllegalArgumentException.class,
@@ -91,18 +150,36 @@ public class GlobalExceptionHandler {
     })
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Map<String, String>> handleGenericException(RuntimeException ex) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Invalid request");
-        error.put("message", ex.getMessage() != null ? ex.getMessage() : "No error message available");
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(body("Invalid request", messageOf(ex)), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<Map<String, String>> handleAllUncaughtException(Exception ex) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "An unexpected error occurred");
-        error.put("message", ex.getMessage() != null ? ex.getMessage() : "No error message available");
-        return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(UNEXPECTED, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private static String messageOf(Exception ex) {
+        return ex.getMessage() != null ? ex.getMessage() : "No error message available";
+    }
+
+    private static Map<String, String> body(String error, String message) {
+        return body(error, null, message);
+    }
+
+    private static Map<String, String> refusal(ErrorCode code, String message) {
+        return body("Invalid request", code.name(), message);
+    }
+
+    private static Map<String, String> body(String error, String code, String message) {
+        Map<String, String> body = new LinkedHashMap<>(4);
+        body.put("error", error);
+        if (code != null) {
+            body.put("code", code);
+        }
+        if (message != null) {
+            body.put("message", message);
+        }
+        return Collections.unmodifiableMap(body);
     }
 }
@@ -1,7 +1,8 @@
 package com.flapkap.vending_machine.exception;
 
-public class InsufficientFundsException extends RuntimeException {
-    public InsufficientFundsException(String message) {
-        super(message);
+public class InsufficientFundsException extends VendingException {
+    public InsufficientFundsException(int balance, int required) {
+        super(ErrorCode.INSUFFICIENT_FUNDS, "Insufficient funds. Balance: " + balance
+                + " cents, Required: " + required + " cents");
     }
 }
@@ -1,7 +1,8 @@
 package com.flapkap.vending_machine.exception;
 
-public class InsufficientStockException extends RuntimeException {
-    public InsufficientStockException(String message) {
-        super(message);
+public class InsufficientStockException extends VendingException {
+    public InsufficientStockException(String productName, int available, int requested) {
+        super(ErrorCode.INSUFFICIENT_STOCK, "Insufficient stock for product: " + productName
+                + ". Available: " + available + ", Requested: " + requested);
     }
 }
@@ -0,0 +1,7 @@
+package com.flapkap.vending_machine.exception;
+
+public class InvalidCoinException extends VendingException {
+    public InvalidCoinException() {
+        super(ErrorCode.INVALID_COIN, "Only 5, 10, 20, 50, or 100 cent coins are accepted");
+    }
+}
@@ -0,0 +1,14 @@
+package com.flapkap.vending_machine.exception;
+
+import java.time.Duration;
+
+/**
+ * An operation ran past its deadline; its statements were cancelled and its
+ * transaction rolled back.
+ */
+public class OperationTimeoutException extends RuntimeException {
+
+    public OperationTimeoutException(String operation, Duration timeout, Throwable cause) {
+        super(operation + " did not finish within " + timeout.toMillis() + "ms", cause);
+    }
+}
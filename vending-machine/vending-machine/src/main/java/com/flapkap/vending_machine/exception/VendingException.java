@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.exception;
+
+/**
+ * A vending operation refused for a business reason, such as a sold-out product. These
+ * are ordinary outcomes, frequent during a sell-out, so they carry no stack trace and
+ * are not logged as errors; the message and {@link ErrorCode} say all there is to know.
+ */
+public abstract class VendingException extends RuntimeException {
+
+    private final ErrorCode code;
+
+    protected VendingException(ErrorCode code, String message) {
+        super(message, null, false, false);
+        this.code = code;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,94 @@
+package com.flapkap.vending_machine.loadshedding;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit derived from latency. Each completed request compares its latency
+ * with the long-term average: while they are close the limit grows by about its square
+ * root, and as latency rises, because requests are queueing for locks or connections,
+ * the limit shrinks in proportion. A server error cuts the limit by the backoff ratio.
+ * <p>
+ * Admission is a compare-and-set on the in-flight count; only the limit update on
+ * completion is synchronized.
+ */
+final class GradientLimit {
+
+    private final LoadSheddingProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double longRtt;
+    private long samples;
+
+    GradientLimit(LoadSheddingProperties properties) {
+        this.properties = properties;
+        this.estimatedLimit = properties.initialLimit();
+        this.limit = properties.initialLimit();
+    }
+
+    /**
+     * @return the number of requests in flight including this one, or 0 when the limit is reached
+     */
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos        time the request took
+     * @param inFlightAtStart what {@link #tryAcquire()} returned for it
+     * @param failed          the request ended in a server error
+     */
+    void release(long rttNanos, int inFlightAtStart, boolean failed) {
+        inFlight.decrementAndGet();
+        update(rttNanos, inFlightAtStart, failed);
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart, boolean failed) {
+        if (failed) {
+            setLimit(estimatedLimit * properties.backoffRatio());
+            return;
+        }
+
+        double rtt = Math.max(rttNanos, 1);
+        samples++;
+        // Plain mean until the window is full, exponential average after
+        double weight = samples < properties.longWindow() ? 1.0 / samples : 2.0 / (properties.longWindow() + 1);
+        longRtt += (rtt - longRtt) * weight;
+        if (longRtt / rtt > 2) {
+            // Latency is well below the average after a slow period, let the average catch up
+            longRtt *= 0.95;
+        }
+
+        // A request that did not fill the window says nothing about a larger one
+        if (inFlightAtStart < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.tolerance() * longRtt / rtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        setLimit(estimatedLimit * (1 - properties.smoothing()) + newLimit * properties.smoothing());
+    }
+
+    private void setLimit(double newLimit) {
+        estimatedLimit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
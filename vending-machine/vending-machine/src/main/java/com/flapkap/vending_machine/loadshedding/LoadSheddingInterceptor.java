@@ -0,0 +1,117 @@
+package com.flapkap.vending_machine.loadshedding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.dto.response.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sheds requests with 503 once the handler's endpoint has as many requests in flight
+ * as its {@link GradientLimit} allows. Endpoints are told apart by handler method,
+ * so a slow {@code buy} does not take capacity from {@code deposit}.
+ */
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+
+    public static final String LIMIT = "vending.load-shedding.limit";
+    public static final String IN_FLIGHT = "vending.load-shedding.in-flight";
+    public static final String REJECTED = "vending.load-shedding.rejected";
+
+    private static final String ADMISSION = LoadSheddingInterceptor.class.getName() + ".admission";
+
+    private final LoadSheddingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public LoadSheddingInterceptor(LoadSheddingProperties properties, MeterRegistry meterRegistry,
+                                   ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Endpoint endpoint = endpoint(handlerMethod.getMethod().getName());
+        int inFlight = endpoint.limit.tryAcquire();
+        if (inFlight == 0) {
+            endpoint.rejected.increment();
+            shed(request, response);
+            return false;
+        }
+        request.setAttribute(ADMISSION, new Admission(endpoint.limit, System.nanoTime(), inFlight));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ADMISSION) instanceof Admission admission) {
+            request.removeAttribute(ADMISSION);
+            boolean failed = ex != null || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+            admission.limit.release(System.nanoTime() - admission.startNanos, admission.inFlight, failed);
+        }
+    }
+
+    GradientLimit limitFor(String endpoint) {
+        return endpoint(endpoint).limit;
+    }
+
+    private Endpoint endpoint(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        return endpoint != null ? endpoint : endpoints.computeIfAbsent(name, this::createEndpoint);
+    }
+
+    private Endpoint createEndpoint(String name) {
+        GradientLimit limit = new GradientLimit(properties);
+        Gauge.builder(LIMIT, limit, GradientLimit::getLimit)
+                .tag("endpoint", name)
+                .description("Concurrent requests currently allowed")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, limit, GradientLimit::getInFlight)
+                .tag("endpoint", name)
+                .description("Requests currently being handled")
+                .register(meterRegistry);
+        Counter rejected = Counter.builder(REJECTED)
+                .tag("endpoint", name)
+                .description("Requests shed with 503 because the endpoint was at its limit")
+                .register(meterRegistry);
+        return new Endpoint(limit, rejected);
+    }
+
+    private void shed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message("The service is busy, please retry")
+                .path(request.getRequestURI())
+                .build();
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private record Endpoint(GradientLimit limit, Counter rejected) {
+    }
+
+    private record Admission(GradientLimit limit, long startNanos, int inFlight) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.flapkap.vending_machine.loadshedding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Adaptive concurrency limits for the vending endpoints. Each endpoint keeps its own
+ * limit, which grows while latency stays near its long-term average and shrinks as
+ * latency rises or requests fail.
+ *
+ * @param enabled       shed requests over the limit with 503
+ * @param initialLimit  concurrent requests allowed before any latency has been seen
+ * @param minLimit      the limit never goes below this
+ * @param maxLimit      the limit never goes above this
+ * @param tolerance     how far latency may rise above its long-term average before the limit shrinks
+ * @param smoothing     weight of each new estimate, from 0 to 1
+ * @param longWindow    samples in the long-term latency average
+ * @param backoffRatio  the limit is multiplied by this when a request fails with a server error
+ */
+@ConfigurationProperties(prefix = "vending.load-shedding")
+public record LoadSheddingProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("1.5") double tolerance,
+        @DefaultValue("0.2") double smoothing,
+        @DefaultValue("600") int longWindow,
+        @DefaultValue("0.9") double backoffRatio
+) {
+}
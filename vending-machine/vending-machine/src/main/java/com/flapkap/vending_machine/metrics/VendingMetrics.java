@@ -0,0 +1,92 @@
+package com.flapkap.vending_machine.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Business counters for the vending flows. Increments are deferred until the
+ * surrounding transaction commits, so rolled-back purchases are not counted.
+ */
+@Component
+public class VendingMetrics {
+
+    public static final String COINS_DEPOSITED = "vending.coins.deposited";
+    public static final String ITEMS_SOLD = "vending.items.sold";
+    public static final String TRANSACTION_RETRIES = "vending.transaction.retries";
+    public static final String OPERATION_TIMEOUTS = "vending.operation.timeouts";
+    public static final String STATEMENTS_CANCELLED = "vending.statements.cancelled";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter coinsDeposited;
+
+    public VendingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.coinsDeposited = Counter.builder(COINS_DEPOSITED)
+                .baseUnit("cents")
+                .description("Cents deposited by buyers")
+                .register(meterRegistry);
+    }
+
+    public void coinsDeposited(int cents) {
+        afterCommit(() -> coinsDeposited.increment(cents));
+    }
+
+    /**
+     * Tagged by product name, which is bounded by the size of the catalog.
+     */
+    public void itemsSold(String productName, int quantity) {
+        afterCommit(() -> Counter.builder(ITEMS_SOLD)
+                .tag("product", productName)
+                .description("Items sold per product")
+                .register(meterRegistry)
+                .increment(quantity));
+    }
+
+    /**
+     * Counted straight away: the retry happens whether or not the operation commits in the end.
+     */
+    public void transactionRetried(String operation) {
+        Counter.builder(TRANSACTION_RETRIES)
+                .tag("operation", operation)
+                .description("Operations retried after losing a race for a row")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counted straight away: a timed-out operation is always rolled back.
+     */
+    public void operationTimedOut(String operation) {
+        Counter.builder(OPERATION_TIMEOUTS)
+                .tag("operation", operation)
+                .description("Operations cancelled at their deadline")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counted straight away, whether or not the driver honours the cancellation.
+     */
+    public void statementCancelled() {
+        Counter.builder(STATEMENTS_CANCELLED)
+                .description("SQL statements cancelled at the deadline of their operation")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
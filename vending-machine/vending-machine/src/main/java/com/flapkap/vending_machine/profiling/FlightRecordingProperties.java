@@ -0,0 +1,28 @@
+package com.flapkap.vending_machine.profiling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Flight recordings started through the admin endpoint or at startup.
+ *
+ * @param settings        JDK recording settings to use, {@code default} or {@code profile}
+ * @param maxAge          older data is discarded from running recordings
+ * @param maxSize         recordings are capped at this size on disk
+ * @param recordOnStartup start a continuous recording when the application starts
+ * @param maxRecordings   recordings kept at once, including stopped ones not yet deleted
+ * @param maxDuration     recordings started through the endpoint stop after at most this long
+ */
+@ConfigurationProperties(prefix = "vending.jfr")
+public record FlightRecordingProperties(
+        @DefaultValue("profile") String settings,
+        @DefaultValue("30m") Duration maxAge,
+        @DefaultValue("250MB") DataSize maxSize,
+        @DefaultValue("false") boolean recordOnStartup,
+        @DefaultValue("3") int maxRecordings,
+        @DefaultValue("30m") Duration maxDuration
+) {
+}
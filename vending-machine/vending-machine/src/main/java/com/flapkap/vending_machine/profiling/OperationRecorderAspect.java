@@ -0,0 +1,64 @@
+package com.flapkap.vending_machine.profiling;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps {@link RecordedOperation} methods in a {@link VendingOperationEvent}. Ordered
+ * outside the transaction advice so that connection acquisition and the commit flush
+ * count towards the operation. Costs one {@code isEnabled()} check when no recording
+ * is running.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OperationRecorderAspect {
+
+    @Around("@annotation(com.flapkap.vending_machine.profiling.RecordedOperation)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        VendingOperationEvent event = new VendingOperationEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        event.operation = operationName(joinPoint);
+        SqlActivity.Snapshot before = SqlActivity.snapshot();
+        VendingOperationEvent previous = event.makeCurrent();
+        event.begin();
+        try {
+            Object result = joinPoint.proceed();
+            event.outcome = "success";
+            return result;
+        } catch (Throwable t) {
+            event.outcome = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            event.end();
+            VendingOperationEvent.restoreCurrent(previous);
+            if (event.shouldCommit()) {
+                SqlActivity.Snapshot sql = SqlActivity.snapshot().since(before);
+                event.statementCount = (int) sql.statements();
+                event.statementTime = sql.statementNanos();
+                event.connectionWait = sql.connectionWaitNanos();
+                event.commit();
+            }
+        }
+    }
+
+    // Resolved from the join point rather than bound in the pointcut: argument binding
+    // breaks when the advice is ordered ahead of Spring's invocation-exposing interceptor.
+    private static String operationName(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        RecordedOperation annotation = AnnotatedElementUtils.findMergedAnnotation(
+                AopUtils.getMostSpecificMethod(signature.getMethod(), targetClass), RecordedOperation.class);
+        return annotation != null ? annotation.value() : signature.getName();
+    }
+}
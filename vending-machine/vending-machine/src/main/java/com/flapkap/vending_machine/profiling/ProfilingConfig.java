@@ -0,0 +1,36 @@
+package com.flapkap.vending_machine.profiling;
+
+import com.flapkap.vending_machine.service.SlowRequestService;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties({FlightRecordingProperties.class, SlowRequestProperties.class})
+public class ProfilingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlProfilingCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlActivityListener.class.getName());
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, SqlTraceInspector.class.getName());
+        };
+    }
+
+    /**
+     * Registered right after the access log and ahead of the security filters, so that
+     * the time and SQL spent before the controller is part of the trace.
+     */
+    @Bean
+    public FilterRegistrationBean<SlowRequestTraceFilter> slowRequestTraceFilter(
+            SlowRequestProperties properties, SlowRequestService slowRequestService) {
+        FilterRegistrationBean<SlowRequestTraceFilter> registration =
+                new FilterRegistrationBean<>(new SlowRequestTraceFilter(properties, slowRequestService));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.profiling;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Emits a {@link VendingOperationEvent} around the annotated method while a flight
+ * recording is running.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RecordedOperation {
+
+    /**
+     * Operation name written to the event, e.g. {@code buy}.
+     */
+    String value();
+}
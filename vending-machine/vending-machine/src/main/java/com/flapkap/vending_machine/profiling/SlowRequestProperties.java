@@ -0,0 +1,21 @@
+package com.flapkap.vending_machine.profiling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * SQL traces of slow requests, timed from before authentication to the written response.
+ *
+ * @param threshold     requests taking at least this long keep their trace
+ * @param capacity      number of slow request traces held; the oldest are dropped first
+ * @param maxStatements statements kept per trace; the rest are only counted
+ */
+@ConfigurationProperties(prefix = "vending.slow-requests")
+public record SlowRequestProperties(
+        @DefaultValue("500ms") Duration threshold,
+        @DefaultValue("50") int capacity,
+        @DefaultValue("200") int maxStatements
+) {
+}
@@ -0,0 +1,95 @@
+package com.flapkap.vending_machine.profiling;
+
+import com.flapkap.vending_machine.dto.response.SlowRequestTrace;
+import com.flapkap.vending_machine.dto.response.SqlStatementTrace;
+import com.flapkap.vending_machine.service.SlowRequestService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Traces the SQL issued by every request and hands the trace to
+ * {@link SlowRequestService} when the request reaches the configured threshold. It runs
+ * ahead of the security filters, so the trace also covers token validation and its user
+ * lookup, rate limiting, load shedding, bulkhead waits and message conversion. A fast
+ * request costs a thread-local and a list of SQL string references.
+ */
+public class SlowRequestTraceFilter extends OncePerRequestFilter {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final SlowRequestProperties properties;
+    private final SlowRequestService slowRequestService;
+
+    public SlowRequestTraceFilter(SlowRequestProperties properties, SlowRequestService slowRequestService) {
+        this.properties = properties;
+        this.slowRequestService = slowRequestService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlTrace trace = SqlTrace.start(properties.maxStatements());
+        if (trace == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            trace.stop();
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= properties.threshold().toNanos()) {
+                slowRequestService.record(toSlowRequest(request, response, trace, failure, elapsed));
+            }
+        }
+    }
+
+    private static SlowRequestTrace toSlowRequest(HttpServletRequest request, HttpServletResponse response,
+                                                  SqlTrace trace, Throwable failure, long elapsedNanos) {
+        List<SqlStatementTrace> statements = trace.statements().stream()
+                .map(statement -> new SqlStatementTrace(statement.sql(), statement.bindCount(),
+                        statement.executions(), statement.nanos() / NANOS_PER_MILLI))
+                .toList();
+        long statementNanos = trace.statements().stream().mapToLong(SqlTrace.Statement::nanos).sum();
+
+        // Set by the dispatcher; absent when the request was turned away before reaching it
+        String handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod method
+                ? method.getBeanType().getSimpleName() + "." + method.getMethod().getName()
+                : null;
+        // An exception answered by an exception handler does not escape, but is left on the request
+        Object handled = request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+        String outcome = failure != null ? failure.getClass().getSimpleName()
+                : handled != null ? handled.getClass().getSimpleName()
+                : "success";
+
+        return new SlowRequestTrace(
+                Instant.now(),
+                request.getMethod(),
+                request.getRequestURI(),
+                handler,
+                outcome,
+                failure != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(),
+                elapsedNanos / NANOS_PER_MILLI,
+                statementNanos / NANOS_PER_MILLI,
+                trace.connectionWaitNanos() / NANOS_PER_MILLI,
+                statements.size() + trace.droppedStatements(),
+                trace.droppedStatements(),
+                statements);
+    }
+}
@@ -0,0 +1,45 @@
+package com.flapkap.vending_machine.profiling;
+
+/**
+ * Per-thread running totals of JDBC work, fed by {@link SqlActivityListener}. The
+ * totals only grow, so callers take a {@link #snapshot()} before an operation and
+ * subtract it afterwards.
+ */
+public final class SqlActivity {
+
+    private static final ThreadLocal<Totals> TOTALS = ThreadLocal.withInitial(Totals::new);
+
+    private SqlActivity() {
+    }
+
+    public static Snapshot snapshot() {
+        Totals totals = TOTALS.get();
+        return new Snapshot(totals.statements, totals.statementNanos, totals.connectionWaitNanos);
+    }
+
+    static void statementExecuted(long nanos) {
+        Totals totals = TOTALS.get();
+        totals.statements++;
+        totals.statementNanos += nanos;
+    }
+
+    static void connectionAcquired(long waitNanos) {
+        TOTALS.get().connectionWaitNanos += waitNanos;
+    }
+
+    public record Snapshot(long statements, long statementNanos, long connectionWaitNanos) {
+
+        public Snapshot since(Snapshot earlier) {
+            return new Snapshot(
+                    statements - earlier.statements,
+                    statementNanos - earlier.statementNanos,
+                    connectionWaitNanos - earlier.connectionWaitNanos);
+        }
+    }
+
+    private static final class Totals {
+        long statements;
+        long statementNanos;
+        long connectionWaitNanos;
+    }
+}
@@ -0,0 +1,52 @@
+package com.flapkap.vending_machine.profiling;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Hibernate session listener timing statement execution and connection acquisition
+ * into {@link SqlActivity} and the current {@link SqlTrace}. Hibernate creates one per
+ * session.
+ */
+public class SqlActivityListener implements SessionEventListener {
+
+    private long acquisitionStart;
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisitionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        long waitNanos = System.nanoTime() - acquisitionStart;
+        SqlActivity.connectionAcquired(waitNanos);
+        SqlTrace.connectionAcquired(waitNanos);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statementExecuted(System.nanoTime() - executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        statementExecuted(System.nanoTime() - batchStart);
+    }
+
+    private static void statementExecuted(long nanos) {
+        SqlActivity.statementExecuted(nanos);
+        SqlTrace.statementExecuted(nanos);
+    }
+}
@@ -0,0 +1,122 @@
+package com.flapkap.vending_machine.profiling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL statements issued by the current request, in order. Statements are captured by
+ * {@link SqlTraceInspector} as Hibernate prepares them and timed by
+ * {@link SqlActivityListener} as they execute. Only the SQL string reference is kept
+ * while the request runs; bind counts are worked out when a slow trace is kept.
+ */
+public final class SqlTrace {
+
+    private static final ThreadLocal<SqlTrace> CURRENT = new ThreadLocal<>();
+
+    private final int maxStatements;
+    private final List<Statement> statements = new ArrayList<>();
+    private int droppedStatements;
+    private long connectionWaitNanos;
+
+    private SqlTrace(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * Starts tracing on this thread, or returns {@code null} if a trace is already running.
+     */
+    public static SqlTrace start(int maxStatements) {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        SqlTrace trace = new SqlTrace(maxStatements);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public void stop() {
+        CURRENT.remove();
+    }
+
+    public List<Statement> statements() {
+        return statements;
+    }
+
+    public int droppedStatements() {
+        return droppedStatements;
+    }
+
+    public long connectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+
+    static void statementPrepared(String sql) {
+        SqlTrace trace = CURRENT.get();
+        if (trace == null) {
+            return;
+        }
+        if (trace.statements.size() < trace.maxStatements) {
+            trace.statements.add(new Statement(sql));
+        } else {
+            trace.droppedStatements++;
+        }
+    }
+
+    static void statementExecuted(long nanos) {
+        SqlTrace trace = CURRENT.get();
+        if (trace == null || trace.statements.isEmpty()) {
+            return;
+        }
+        // A prepared statement can be executed more than once, e.g. as a batch
+        Statement last = trace.statements.get(trace.statements.size() - 1);
+        last.executions++;
+        last.nanos += nanos;
+    }
+
+    static void connectionAcquired(long waitNanos) {
+        SqlTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.connectionWaitNanos += waitNanos;
+        }
+    }
+
+    public static final class Statement {
+
+        private final String sql;
+        private int executions;
+        private long nanos;
+
+        private Statement(String sql) {
+            this.sql = sql;
+        }
+
+        public String sql() {
+            return sql;
+        }
+
+        public int executions() {
+            return executions;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * JDBC parameter markers outside string literals.
+         */
+        public int bindCount() {
+            int count = 0;
+            boolean quoted = false;
+            for (int i = 0; i < sql.length(); i++) {
+                char c = sql.charAt(i);
+                if (c == '\'') {
+                    quoted = !quoted;
+                } else if (c == '?' && !quoted) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
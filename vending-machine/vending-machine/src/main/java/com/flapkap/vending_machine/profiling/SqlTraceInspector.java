@@ -0,0 +1,16 @@
+package com.flapkap.vending_machine.profiling;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hands every statement Hibernate prepares to the current {@link SqlTrace}. The SQL
+ * is passed through unchanged.
+ */
+public class SqlTraceInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlTrace.statementPrepared(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,78 @@
+package com.flapkap.vending_machine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one domain operation, so purchases, deposits and logins can be lined
+ * up with GC, lock and I/O events in the same recording.
+ */
+@Name("com.flapkap.vending.Operation")
+@Label("Vending Operation")
+@Category("Vending Machine")
+@Description("A deposit, purchase, reset, login or token verification")
+@StackTrace(false)
+public class VendingOperationEvent extends Event {
+
+    private static final ThreadLocal<VendingOperationEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Cart Size")
+    @Description("Number of distinct products in a purchase")
+    int cartSize;
+
+    @Label("Total Cost")
+    @Description("Purchase total in cents")
+    int totalCost;
+
+    @Label("Statements")
+    @Description("JDBC statements executed, including the commit flush")
+    int statementCount;
+
+    @Label("Statement Time")
+    @Description("Time spent executing JDBC statements, which includes database lock waits")
+    @Timespan(Timespan.NANOSECONDS)
+    long statementTime;
+
+    @Label("Connection Wait")
+    @Description("Time spent waiting for a pooled connection")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionWait;
+
+    @Label("Outcome")
+    @Description("success, or the simple name of the exception thrown")
+    String outcome;
+
+    /**
+     * Adds purchase details to the event of the operation running on this thread, if
+     * one is being recorded.
+     */
+    public static void recordCart(int cartSize, int totalCost) {
+        VendingOperationEvent event = CURRENT.get();
+        if (event != null) {
+            event.cartSize = cartSize;
+            event.totalCost = totalCost;
+        }
+    }
+
+    VendingOperationEvent makeCurrent() {
+        VendingOperationEvent previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    static void restoreCurrent(VendingOperationEvent previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
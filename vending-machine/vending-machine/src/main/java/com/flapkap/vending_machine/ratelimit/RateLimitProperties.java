@@ -0,0 +1,39 @@
+package com.flapkap.vending_machine.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-caller rate limits. Each route keeps one token bucket per username, or per
+ * client address for anonymous callers.
+ *
+ * @param enabled          apply the limits
+ * @param idleTimeout      buckets unused for this long are dropped; a dropped bucket was full anyway
+ * @param evictionInterval how often idle buckets are looked for
+ * @param routes           limits by route name; a request is counted against the first route it matches
+ */
+@ConfigurationProperties(prefix = "vending.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10m") Duration idleTimeout,
+        @DefaultValue("1m") Duration evictionInterval,
+        @DefaultValue Map<String, Route> routes
+) {
+
+    /**
+     * @param method          HTTP method, or unset for all methods
+     * @param pattern         path pattern, e.g. {@code /api/v1/vendors/**}
+     * @param capacity        largest burst a caller can send
+     * @param refillPerSecond sustained requests per second per caller
+     */
+    public record Route(
+            String method,
+            @DefaultValue("/**") String pattern,
+            @DefaultValue("10") int capacity,
+            @DefaultValue("1") double refillPerSecond
+    ) {
+    }
+}
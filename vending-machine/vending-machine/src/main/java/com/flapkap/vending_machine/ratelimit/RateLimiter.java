@@ -0,0 +1,128 @@
+package com.flapkap.vending_machine.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets per route and caller. Buckets are created on first use and dropped
+ * by a background task once they have been full for the idle timeout.
+ */
+public class RateLimiter implements AutoCloseable {
+
+    public static final String REJECTED = "vending.rate-limit.rejected";
+    public static final String BUCKETS = "vending.rate-limit.buckets";
+
+    private final List<Route> routes = new ArrayList<>();
+    private final long idleNanos;
+    private final ScheduledExecutorService evictor;
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        for (Map.Entry<String, RateLimitProperties.Route> entry : properties.routes().entrySet()) {
+            routes.add(new Route(entry.getKey(), entry.getValue(), meterRegistry));
+        }
+        this.idleNanos = properties.idleTimeout().toNanos();
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.evictionInterval().toMillis();
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a token for the caller from the first route the request matches.
+     *
+     * @param caller    username, or the client address when {@code anonymous}
+     * @param anonymous callers by address get their own buckets, apart from usernames
+     * @return 0 when the request may proceed, or is not limited at all;
+     * otherwise the nanoseconds until the caller gets a token
+     */
+    public long tryAcquire(HttpServletRequest request, String caller, boolean anonymous) {
+        Route route = match(request);
+        if (route == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        Map<String, TokenBucket> buckets = anonymous ? route.addresses : route.users;
+        TokenBucket bucket = buckets.get(caller);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(caller, key -> new TokenBucket(now));
+        }
+        long wait = bucket.tryAcquire(now, route.intervalNanos, route.capacityNanos);
+        if (wait > 0) {
+            route.rejected.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Drops the buckets that have been full for the idle timeout. A request racing the
+     * removal may take one token from the dropped bucket before a fresh one is created.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Route route : routes) {
+            route.users.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+            route.addresses.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+        }
+    }
+
+    private Route match(HttpServletRequest request) {
+        if (routes.isEmpty()) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Route route : routes) {
+            if ((route.method == null || route.method.equalsIgnoreCase(request.getMethod()))
+                    && route.pattern.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+    }
+
+    private static final class Route {
+
+        private final String method;
+        private final PathPattern pattern;
+        private final long intervalNanos;
+        private final long capacityNanos;
+        private final Map<String, TokenBucket> users = new ConcurrentHashMap<>();
+        private final Map<String, TokenBucket> addresses = new ConcurrentHashMap<>();
+        private final Counter rejected;
+
+        private Route(String name, RateLimitProperties.Route limit, MeterRegistry meterRegistry) {
+            this.method = limit.method();
+            this.pattern = PathPatternParser.defaultInstance.parse(limit.pattern());
+            this.intervalNanos = Math.round(TimeUnit.SECONDS.toNanos(1) / limit.refillPerSecond());
+            this.capacityNanos = intervalNanos * limit.capacity();
+            this.rejected = Counter.builder(REJECTED)
+                    .tag("route", name)
+                    .description("Requests refused with 429 because the caller ran out of tokens")
+                    .register(meterRegistry);
+            Gauge.builder(BUCKETS, this, route -> route.users.size() + route.addresses.size())
+                    .tag("route", name)
+                    .description("Callers with a token bucket")
+                    .register(meterRegistry);
+        }
+    }
+}
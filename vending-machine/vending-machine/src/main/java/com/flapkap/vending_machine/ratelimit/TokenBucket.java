@@ -0,0 +1,47 @@
+package com.flapkap.vending_machine.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket held as a single timestamp (the generic cell rate algorithm): the
+ * time at which the bucket would be full again. Taking a token moves it forward by
+ * one refill interval, and a request is refused when that would put it more than
+ * {@code capacity} intervals ahead of now. Updates are a compare-and-set, so callers
+ * never block each other.
+ */
+final class TokenBucket {
+
+    private final AtomicLong fullAt;
+
+    TokenBucket(long now) {
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * @param now            current {@link System#nanoTime()}
+     * @param intervalNanos  time to refill one token
+     * @param capacityNanos  capacity times {@code intervalNanos}
+     * @return 0 when a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(long now, long intervalNanos, long capacityNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > capacityNanos) {
+                return ahead - capacityNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Whether the bucket has been full for at least {@code idleNanos}, so it can be
+     * dropped and recreated later without changing what the caller is allowed.
+     */
+    boolean isIdle(long now, long idleNanos) {
+        return now - fullAt.get() >= idleNanos;
+    }
+}
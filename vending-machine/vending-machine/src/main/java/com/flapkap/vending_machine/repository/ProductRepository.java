@@ -1,14 +1,41 @@
 package com.flapkap.vending_machine.repository;
 
 import com.flapkap.vending_machine.entity.ProductEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
+public interface ProductRepository extends JpaRepository<ProductEntity, Long>, ProductRepositoryCustom {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<ProductEntity> findByProductName(String productName);
+
+    // SELECT ... FOR UPDATE, bypassing the query cache
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ProductEntity> findLockedByProductName(String productName);
+
     boolean existsByProductName(String productName);
-    void deleteByProductName(String productName);
+
+    // Set-based deletes: one DELETE statement instead of load-then-delete per entity
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProductEntity p where p.productName = :productName")
+    int deleteByProductName(@Param("productName") String productName);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProductEntity p where p.productName in :productNames")
+    int deleteByProductNameIn(@Param("productNames") Collection<String> productNames);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProductEntity p where p.sellerId.id = :sellerId")
+    int deleteBySellerId(@Param("sellerId") Long sellerId);
 }
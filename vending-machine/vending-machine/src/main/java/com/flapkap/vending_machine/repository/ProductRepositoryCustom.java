@@ -0,0 +1,16 @@
+package com.flapkap.vending_machine.repository;
+
+import com.flapkap.vending_machine.dto.ProductPatch;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Issues a single UPDATE touching only the non-null fields of the patch.
+     * When a seller id is supplied the row is only updated if that seller exists.
+     * Pending changes are flushed first, and a managed instance of the product is
+     * detached afterwards, so it has to be read again to see the update.
+     *
+     * @return number of rows updated
+     */
+    int patchByProductName(String productName, ProductPatch patch);
+}
@@ -0,0 +1,73 @@
+package com.flapkap.vending_machine.repository;
+
+import com.flapkap.vending_machine.dto.ProductPatch;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.Session;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int patchByProductName(String productName, ProductPatch patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<ProductEntity> update = cb.createCriteriaUpdate(ProductEntity.class);
+        Root<ProductEntity> product = update.from(ProductEntity.class);
+
+        if (patch.amountAvailable() != null) {
+            update.set(product.<Integer>get("amountAvailable"), patch.amountAvailable());
+        }
+        if (patch.cost() != null) {
+            update.set(product.<Integer>get("cost"), patch.cost());
+        }
+        if (patch.productName() != null) {
+            update.set(product.<String>get("productName"), patch.productName());
+        }
+
+        // Bulk updates bypass @Version, so bump it here for concurrent optimistic purchases to notice
+        update.set(product.<Long>get("version"), cb.sum(product.<Long>get("version"), 1L));
+
+        Predicate where = cb.equal(product.get("productName"), productName);
+        if (patch.sellerId() != null) {
+            // Reference only, the seller row is never loaded
+            update.set(product.<UserEntity>get("sellerId"), entityManager.getReference(UserEntity.class, patch.sellerId()));
+
+            Subquery<Long> seller = update.subquery(Long.class);
+            Root<UserEntity> user = seller.from(UserEntity.class);
+            seller.select(user.get("id")).where(cb.equal(user.get("id"), patch.sellerId()));
+            where = cb.and(where, cb.exists(seller));
+        }
+        update.where(where);
+
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        detach(productName);
+        return updated;
+    }
+
+    /**
+     * The update went straight to the database, so a managed copy of the product is stale.
+     * Only that copy is detached; everything else in the persistence context stays managed.
+     * A managed copy is found by its natural id without a query, and with nothing managed
+     * at all there is nothing to look up.
+     */
+    private void detach(String productName) {
+        Session session = entityManager.unwrap(Session.class);
+        if (session.getStatistics().getEntityCount() == 0) {
+            return;
+        }
+        ProductEntity managed = session.bySimpleNaturalId(ProductEntity.class).getReference(productName);
+        if (managed != null) {
+            entityManager.detach(managed);
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package com.flapkap.vending_machine.repository;
 
 import com.flapkap.vending_machine.entity.UserEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<UserEntity> findByUsername(String username);
+
+    // SELECT ... FOR UPDATE, bypassing the query cache
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<UserEntity> findLockedByUsername(String username);
 }
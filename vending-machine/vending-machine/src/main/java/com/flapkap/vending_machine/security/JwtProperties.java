@@ -0,0 +1,28 @@
+package com.flapkap.vending_machine.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Token signing key and lifetime. Mutable on purpose: Spring Cloud rebinds it in place
+ * when the configuration is refreshed, which also works in AOT builds where there is no
+ * refresh scope.
+ *
+ * @see JwtService
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "security.jwt")
+public class JwtProperties {
+
+    /**
+     * Base64-encoded HMAC-SHA256 key.
+     */
+    private String secretKey;
+
+    /**
+     * Token lifetime in milliseconds.
+     */
+    private long expirationTime;
+}
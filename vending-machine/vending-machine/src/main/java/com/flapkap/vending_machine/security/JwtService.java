@@ -6,6 +6,8 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import com.flapkap.vending_machine.profiling.RecordedOperation;
+import io.micrometer.core.annotation.Timed;
 
 import java.security.Key;
 import java.util.Date;
@@ -13,20 +15,20 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
-import org.springframework.beans.factory.annotation.Value;
+import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 
 @Component
+@RequiredArgsConstructor
 public class JwtService {
 
-    @Value("${security.jwt.secret-key}")
-    private String secretKey;
+    private static final String JWT_TIMER = "vending.jwt";
 
-    @Value("${security.jwt.expiration-time}")
-    private long jwtExpiration;
+    private final JwtProperties properties;
 
+    @Timed(value = JWT_TIMER, extraTags = {"operation", "parse"}, histogram = true)
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -41,9 +43,11 @@ public class JwtService {
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        return buildToken(extraClaims, userDetails, properties.getExpirationTime());
     }
 
+    @Timed(value = JWT_TIMER, extraTags = {"operation", "verify"}, histogram = true)
+    @RecordedOperation("verify-token")
     public boolean isTokenValid(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
@@ -82,7 +86,7 @@ public class JwtService {
     }
 
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        byte[] keyBytes = Decoders.BASE64.decode(properties.getSecretKey());
         return Keys.hmacShaKeyFor(keyBytes);
     }
 }
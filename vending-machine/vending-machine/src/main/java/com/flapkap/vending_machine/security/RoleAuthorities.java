@@ -0,0 +1,38 @@
+package com.flapkap.vending_machine.security;
+
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.entity.RoleSetConverter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Granted authorities precomputed for every role bitmask.
+ */
+public final class RoleAuthorities {
+
+    private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK = new ArrayList<>();
+
+    static {
+        Role[] roles = Role.values();
+        for (int mask = 0; mask < 1 << roles.length; mask++) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (Role role : roles) {
+                if ((mask & role.mask()) != 0) {
+                    authorities.add(new SimpleGrantedAuthority("ROLE_" + role)); // Prefix with ROLE_
+                }
+            }
+            AUTHORITIES_BY_MASK.add(List.copyOf(authorities));
+        }
+    }
+
+    private RoleAuthorities() {
+    }
+
+    public static List<GrantedAuthority> of(Set<Role> roles) {
+        return AUTHORITIES_BY_MASK.get(RoleSetConverter.toMask(roles));
+    }
+}
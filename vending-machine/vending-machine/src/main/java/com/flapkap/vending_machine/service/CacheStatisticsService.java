@@ -0,0 +1,9 @@
+package com.flapkap.vending_machine.service;
+
+import com.flapkap.vending_machine.dto.response.CacheRegionStats;
+
+import java.util.List;
+
+public interface CacheStatisticsService {
+    List<CacheRegionStats> getRegionStatistics();
+}
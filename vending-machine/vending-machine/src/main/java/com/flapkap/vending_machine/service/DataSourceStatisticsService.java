@@ -0,0 +1,7 @@
+package com.flapkap.vending_machine.service;
+
+import com.flapkap.vending_machine.dto.response.DataSourceStats;
+
+public interface DataSourceStatisticsService {
+    DataSourceStats getDataSourceStatistics();
+}
@@ -0,0 +1,24 @@
+package com.flapkap.vending_machine.service;
+
+import com.flapkap.vending_machine.dto.response.FlightRecordingInfo;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+
+public interface FlightRecordingService {
+    List<FlightRecordingInfo> getRecordings();
+
+    /**
+     * Starts a recording with the configured settings. It stops after the given duration, capped
+     * at {@code vending.jfr.max-duration}, which also applies when no duration is given.
+     */
+    FlightRecordingInfo startRecording(Duration duration);
+
+    /**
+     * Snapshot of the recording so far as a .jfr file, deleted once the stream is closed.
+     */
+    InputStream dumpRecording(long id);
+
+    void stopRecording(long id);
+}
@@ -1,8 +1,10 @@
 package com.flapkap.vending_machine.service;
 
 import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.ProductPatch;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -13,5 +15,11 @@ public interface ProductService {
 
     Product updateProduct(String productName, Product product);
 
+    void patchProduct(String productName, ProductPatch patch);
+
     void deleteProduct(String productName);
+
+    int deleteProducts(Collection<String> productNames);
+
+    int deleteProductsBySeller(Long sellerId);
 }
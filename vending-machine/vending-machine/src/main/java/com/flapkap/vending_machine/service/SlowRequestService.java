@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.service;
+
+import com.flapkap.vending_machine.dto.response.SlowRequestTrace;
+
+import java.util.List;
+
+public interface SlowRequestService {
+
+    /**
+     * Keeps the trace, dropping the oldest one once the configured capacity is reached.
+     */
+    void record(SlowRequestTrace trace);
+
+    /**
+     * Slow request traces, newest first.
+     */
+    List<SlowRequestTrace> getSlowRequests();
+
+    void clear();
+}
@@ -0,0 +1,16 @@
+package com.flapkap.vending_machine.service;
+
+import com.flapkap.vending_machine.dto.response.StartupReport;
+
+import java.util.List;
+
+public interface StartupService {
+
+    /**
+     * Startup steps recorded by a {@code BufferingApplicationStartup}, with at most
+     * {@code limit} of the slowest bean initializations.
+     */
+    StartupReport getReport(int limit);
+
+    void recordWarmup(List<StartupReport.WarmupStep> steps);
+}
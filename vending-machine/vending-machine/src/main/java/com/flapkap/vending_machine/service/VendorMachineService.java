@@ -2,10 +2,13 @@ package com.flapkap.vending_machine.service;
 
 import com.flapkap.vending_machine.dto.BuyRequest;
 import com.flapkap.vending_machine.dto.DepositRequest;
+import com.flapkap.vending_machine.dto.response.BuyResponse;
+import com.flapkap.vending_machine.dto.response.DepositResponse;
+import com.flapkap.vending_machine.dto.response.ResetResponse;
 import jakarta.validation.Valid;
 
 public interface VendorMachineService {
-    String deposit(@Valid DepositRequest request);
-    String buy(@Valid BuyRequest request);
-    String reset();
+    DepositResponse deposit(@Valid DepositRequest request);
+    BuyResponse buy(@Valid BuyRequest request);
+    ResetResponse reset();
 }
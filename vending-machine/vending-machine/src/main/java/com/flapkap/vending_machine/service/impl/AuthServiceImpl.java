@@ -1,13 +1,15 @@
 package com.flapkap.vending_machine.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flapkap.vending_machine.dto.LoginRequest;
 import com.flapkap.vending_machine.dto.response.LoginResponse;
 import com.flapkap.vending_machine.dto.User;
 import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.profiling.RecordedOperation;
 import com.flapkap.vending_machine.repository.UserRepository;
 import com.flapkap.vending_machine.security.JwtService;
 import com.flapkap.vending_machine.service.AuthService;
+import com.flapkap.vending_machine.util.MappingUtil;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -29,9 +31,11 @@ public class AuthServiceImpl implements AuthService {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
-    private final ObjectMapper objectMapper;
+    private final MappingUtil mappingUtil;
 
     @Override
+    @Timed(value = "vending.auth.login", histogram = true)
+    @RecordedOperation("login")
     public LoginResponse login(LoginRequest request) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -53,20 +57,16 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public User signup(User request) {
-        log.info("Processing signup for user: {}", request.username());
+        log.debug("Processing signup for user: {}", request.username());
         if (userRepository.findByUsername(request.username()).isPresent()) {
             log.error("Username already exists: {}", request.username());
             throw new IllegalArgumentException("Username already exists: " + request.username());
         }
-        UserEntity userEntity = objectMapper.convertValue(request, UserEntity.class);
+        if (request.roles().stream().anyMatch(role -> !role.requestable())) {
+            throw new IllegalArgumentException("Roles can only be BUYER or SELLER");
+        }
+        UserEntity userEntity = mappingUtil.toUserEntity(request);
         userEntity.setPassword(passwordEncoder.encode(request.password()));
-        UserEntity savedEntity = userRepository.save(userEntity);
-        User response = objectMapper.convertValue(savedEntity, User.class);
-        return new User(
-                response.username(),
-                "", // Don't expose password
-                response.deposit(),
-                response.roles()
-        );
+        return mappingUtil.toUser(userRepository.save(userEntity));
     }
 }
@@ -0,0 +1,44 @@
+package com.flapkap.vending_machine.service.impl;
+
+import com.flapkap.vending_machine.config.EntityCacheConfig.RegionEvictionCounter;
+import com.flapkap.vending_machine.dto.response.CacheRegionStats;
+import com.flapkap.vending_machine.service.CacheStatisticsService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CacheStatisticsServiceImpl implements CacheStatisticsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final RegionEvictionCounter regionEvictionCounter;
+
+    @Override
+    public List<CacheRegionStats> getRegionStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+
+        List<CacheRegionStats> result = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            result.add(new CacheRegionStats(
+                    region,
+                    regionStatistics == null ? 0 : regionStatistics.getHitCount(),
+                    regionStatistics == null ? 0 : regionStatistics.getMissCount(),
+                    regionStatistics == null ? 0 : regionStatistics.getPutCount(),
+                    regionEvictionCounter.evictions(region),
+                    regionEvictionCounter.expirations(region)
+            ));
+        }
+        return result;
+    }
+}
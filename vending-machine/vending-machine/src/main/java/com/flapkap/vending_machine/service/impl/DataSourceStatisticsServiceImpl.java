@@ -0,0 +1,53 @@
+package com.flapkap.vending_machine.service.impl;
+
+import com.flapkap.vending_machine.datasource.PoolMetricsTrackerFactory;
+import com.flapkap.vending_machine.datasource.ReplicaLagMonitor;
+import com.flapkap.vending_machine.dto.response.DataSourcePoolStats;
+import com.flapkap.vending_machine.dto.response.DataSourceStats;
+import com.flapkap.vending_machine.service.DataSourceStatisticsService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class DataSourceStatisticsServiceImpl implements DataSourceStatisticsService {
+
+    private final ObjectProvider<HikariDataSource> hikariDataSources;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final PoolMetricsTrackerFactory poolMetricsTrackerFactory;
+
+    @Override
+    public DataSourceStats getDataSourceStatistics() {
+        List<DataSourcePoolStats> pools = hikariDataSources.orderedStream()
+                .map(this::toPoolStats)
+                .toList();
+
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+        return new DataSourceStats(
+                monitor != null,
+                monitor != null && monitor.isReplicaUsable(),
+                monitor == null ? 0 : monitor.getLastLagSeconds(),
+                pools
+        );
+    }
+
+    private DataSourcePoolStats toPoolStats(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean(); // null until the pool has started
+        PoolMetricsTrackerFactory.AcquireTimes acquireTimes = poolMetricsTrackerFactory.acquireTimes(dataSource.getPoolName());
+        return new DataSourcePoolStats(
+                dataSource.getPoolName(),
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+                pool == null ? 0 : pool.getTotalConnections(),
+                acquireTimes.count(),
+                acquireTimes.meanMillis(),
+                acquireTimes.maxMillis()
+        );
+    }
+}
@@ -0,0 +1,134 @@
+package com.flapkap.vending_machine.service.impl;
+
+import com.flapkap.vending_machine.dto.response.FlightRecordingInfo;
+import com.flapkap.vending_machine.exception.ResourceNotFoundException;
+import com.flapkap.vending_machine.profiling.FlightRecordingProperties;
+import com.flapkap.vending_machine.service.FlightRecordingService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlightRecordingServiceImpl implements FlightRecordingService, DisposableBean {
+
+    // Carry the JVM arguments, environment and system properties, which hold credentials
+    private static final List<String> SENSITIVE_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+
+    private final FlightRecordingProperties properties;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startContinuousRecording() {
+        if (properties.recordOnStartup()) {
+            FlightRecordingInfo recording = start(null);
+            log.info("Started continuous flight recording {} with '{}' settings", recording.id(), properties.settings());
+        }
+    }
+
+    @Override
+    public List<FlightRecordingInfo> getRecordings() {
+        return recordings.values().stream()
+                .map(this::toInfo)
+                .toList();
+    }
+
+    @Override
+    public FlightRecordingInfo startRecording(Duration duration) {
+        Duration maxDuration = properties.maxDuration();
+        return start(duration == null || duration.compareTo(maxDuration) > 0 ? maxDuration : duration);
+    }
+
+    private synchronized FlightRecordingInfo start(Duration duration) {
+        if (recordings.size() >= properties.maxRecordings()) {
+            throw new IllegalStateException("At most " + properties.maxRecordings()
+                    + " recordings can be kept; delete one before starting another");
+        }
+        Recording recording = new Recording(settings());
+        SENSITIVE_EVENTS.forEach(recording::disable);
+        recording.setName("vending-" + recording.getId());
+        recording.setToDisk(true);
+        recording.setMaxAge(properties.maxAge());
+        recording.setMaxSize(properties.maxSize().toBytes());
+        if (duration != null) {
+            recording.setDuration(duration);
+        }
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        return toInfo(recording);
+    }
+
+    @Override
+    public InputStream dumpRecording(long id) {
+        Recording recording = getRecording(id);
+        try {
+            Path file = Files.createTempFile(recording.getName() + "-", ".jfr");
+            recording.dump(file);
+            return Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to dump flight recording " + id, e);
+        }
+    }
+
+    @Override
+    public void stopRecording(long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            throw new ResourceNotFoundException("Recording not found with id: " + id);
+        }
+        recording.close();
+    }
+
+    @Override
+    public void destroy() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    private Recording getRecording(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null || recording.getState() == RecordingState.CLOSED) {
+            throw new ResourceNotFoundException("Recording not found with id: " + id);
+        }
+        return recording;
+    }
+
+    private Configuration settings() {
+        try {
+            return Configuration.getConfiguration(properties.settings());
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Unknown flight recorder settings: " + properties.settings(), e);
+        }
+    }
+
+    private FlightRecordingInfo toInfo(Recording recording) {
+        return new FlightRecordingInfo(
+                recording.getId(),
+                recording.getName(),
+                recording.getState().name(),
+                recording.getStartTime(),
+                recording.getDuration(),
+                recording.getSize()
+        );
+    }
+}
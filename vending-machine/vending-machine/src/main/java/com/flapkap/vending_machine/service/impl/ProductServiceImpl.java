@@ -1,18 +1,21 @@
 package com.flapkap.vending_machine.service.impl;
 
 import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.ProductPatch;
 import com.flapkap.vending_machine.exception.ResourceNotFoundException;
 import com.flapkap.vending_machine.entity.ProductEntity;
 import com.flapkap.vending_machine.entity.UserEntity;
 import com.flapkap.vending_machine.repository.ProductRepository;
 import com.flapkap.vending_machine.repository.UserRepository;
 import com.flapkap.vending_machine.service.ProductService;
+import com.flapkap.vending_machine.timeout.OperationTimeout;
+import com.flapkap.vending_machine.util.MappingUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,17 +27,18 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
-    private final ObjectMapper objectMapper;
+    private final MappingUtil mappingUtil;
 
     @Override
     @Transactional(readOnly = true)
+    @OperationTimeout("catalog")
     public List<Product> getAllProducts() {
-        log.info("Fetching all products");
+        log.debug("Fetching all products");
         try {
             List<Product> products = productRepository.findAll().stream()
-                    .map(this::convertEntityToDto)
+                    .map(mappingUtil::toProduct)
                     .collect(Collectors.toList());
-            log.info("Successfully retrieved {} products", products.size());
+            log.debug("Successfully retrieved {} products", products.size());
             return products;
         } catch (Exception e) {
             log.error("Error fetching all products", e);
@@ -44,12 +48,12 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Product createProduct(Product product) {
-        log.info("Creating new product: {}", product.productName());
+        log.debug("Creating new product: {}", product.productName());
         try {
             ProductEntity entity = convertDtoToEntity(product);
             ProductEntity savedEntity = productRepository.save(entity);
-            Product result = convertEntityToDto(savedEntity);
-            log.info("Successfully created product with ID: {} and name: {}", savedEntity.getId(), result.productName());
+            Product result = mappingUtil.toProduct(savedEntity);
+            log.debug("Successfully created product with ID: {} and name: {}", savedEntity.getId(), result.productName());
             return result;
         } catch (Exception e) {
             log.error("Error creating product: {}", product.productName(), e);
@@ -59,30 +63,20 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Product updateProduct(String productName, Product product) {
-        log.info("Updating product: {}", productName);
+        log.debug("Updating product: {}", productName);
         try {
-            ProductEntity existingEntity = productRepository.findByProductName(productName)
-                    .orElseThrow(() -> {
-                        log.warn("Product not found for update: {}", productName);
-                        return new ResourceNotFoundException("Product not found with name: " + productName);
-                    });
-
-            existingEntity.setAmountAvailable(product.amountAvailable());
-            existingEntity.setCost(product.cost());
-            existingEntity.setProductName(product.productName());
-
-            if (product.sellerId() != null) {
-                UserEntity seller = userRepository.findById(product.sellerId())
-                        .orElseThrow(() -> {
-                            log.warn("Seller not found with ID: {} for product: {}", product.sellerId(), productName);
-                            return new ResourceNotFoundException("Seller not found with id: " + product.sellerId());
-                        });
-                existingEntity.setSellerId(seller);
-            }
-
-            ProductEntity updatedEntity = productRepository.save(existingEntity);
-            Product result = convertEntityToDto(updatedEntity);
-            log.info("Successfully updated product: {}", productName);
+            ProductPatch patch = new ProductPatch(
+                    product.amountAvailable(),
+                    product.cost(),
+                    product.productName(),
+                    product.sellerId()
+            );
+            applyPatch(productName, patch);
+            // Read back what was stored, under the name it has now
+            Product result = productRepository.findByProductName(product.productName())
+                    .map(mappingUtil::toProduct)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with name: " + product.productName()));
+            log.debug("Successfully updated product: {}", productName);
             return result;
         } catch (Exception e) {
             log.error("Error updating product: {}", productName, e);
@@ -90,35 +84,74 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    @Override
+    public void patchProduct(String productName, ProductPatch patch) {
+        log.debug("Patching product: {}", productName);
+        if (patch.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be supplied");
+        }
+        try {
+            applyPatch(productName, patch);
+            log.debug("Successfully patched product: {}", productName);
+        } catch (Exception e) {
+            log.error("Error patching product: {}", productName, e);
+            throw e;
+        }
+    }
+
     @Override
     public void deleteProduct(String productName) {
-        log.info("Deleting product: {}", productName);
+        log.debug("Deleting product: {}", productName);
         if (productName == null) {
             log.error("Product name cannot be null for deletion");
             throw new IllegalArgumentException("Product name cannot be null");
         }
 
         try {
-            if (!productRepository.existsByProductName(productName)) {
+            if (productRepository.deleteByProductName(productName) == 0) {
                 log.warn("Product not found for deletion: {}", productName);
                 throw new ResourceNotFoundException("Product not found with name: " + productName);
             }
-
-            productRepository.deleteByProductName(productName);
-            log.info("Successfully deleted product: {}", productName);
+            log.debug("Successfully deleted product: {}", productName);
         } catch (Exception e) {
             log.error("Error deleting product: {}", productName, e);
             throw e;
         }
     }
 
-    private Product convertEntityToDto(ProductEntity entity) {
-        return new Product(
-                entity.getAmountAvailable(),
-                entity.getCost(),
-                entity.getProductName(),
-                entity.getSellerId().getId()
-        );
+    @Override
+    public int deleteProducts(Collection<String> productNames) {
+        log.debug("Deleting {} products by name", productNames.size());
+        if (productNames.isEmpty()) {
+            throw new IllegalArgumentException("Product names cannot be empty");
+        }
+        int deleted = productRepository.deleteByProductNameIn(productNames);
+        log.debug("Successfully deleted {} products", deleted);
+        return deleted;
+    }
+
+    @Override
+    public int deleteProductsBySeller(Long sellerId) {
+        log.debug("Deleting products of seller: {}", sellerId);
+        int deleted = productRepository.deleteBySellerId(sellerId);
+        log.debug("Successfully deleted {} products of seller: {}", deleted, sellerId);
+        return deleted;
+    }
+
+    /**
+     * Runs the single-statement update. The existence lookup below only runs when nothing
+     * was updated under a seller id, to tell a missing product apart from a missing seller.
+     */
+    private void applyPatch(String productName, ProductPatch patch) {
+        if (productRepository.patchByProductName(productName, patch) > 0) {
+            return;
+        }
+        if (patch.sellerId() == null || !productRepository.existsByProductName(productName)) {
+            log.warn("Product not found for update: {}", productName);
+            throw new ResourceNotFoundException("Product not found with name: " + productName);
+        }
+        log.warn("Seller not found with ID: {} for product: {}", patch.sellerId(), productName);
+        throw new ResourceNotFoundException("Seller not found with id: " + patch.sellerId());
     }
 
     private ProductEntity convertDtoToEntity(Product dto) {
@@ -127,12 +160,6 @@ public class ProductServiceImpl implements ProductService {
                     log.warn("Seller not found with ID: {} for product creation", dto.sellerId());
                     return new ResourceNotFoundException("Seller not found with id: " + dto.sellerId());
                 });
-
-        ProductEntity entity = new ProductEntity();
-        entity.setAmountAvailable(dto.amountAvailable());
-        entity.setCost(dto.cost());
-        entity.setProductName(dto.productName());
-        entity.setSellerId(seller);
-        return entity;
+        return mappingUtil.toProductEntity(dto, seller);
     }
 }
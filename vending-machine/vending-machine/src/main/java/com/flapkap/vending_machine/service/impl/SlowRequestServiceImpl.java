@@ -0,0 +1,51 @@
+package com.flapkap.vending_machine.service.impl;
+
+import com.flapkap.vending_machine.dto.response.SlowRequestTrace;
+import com.flapkap.vending_machine.profiling.SlowRequestProperties;
+import com.flapkap.vending_machine.service.SlowRequestService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+@Slf4j
+@Service
+public class SlowRequestServiceImpl implements SlowRequestService {
+
+    private final int capacity;
+    private final Deque<SlowRequestTrace> traces;
+
+    public SlowRequestServiceImpl(SlowRequestProperties properties) {
+        this.capacity = Math.max(1, properties.capacity());
+        this.traces = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public void record(SlowRequestTrace trace) {
+        log.debug("Slow request {} {} took {} ms over {} statements",
+                trace.method(), trace.path(), trace.durationMillis(), trace.statementCount());
+        synchronized (traces) {
+            if (traces.size() == capacity) {
+                traces.removeLast();
+            }
+            traces.addFirst(trace);
+        }
+    }
+
+    @Override
+    public List<SlowRequestTrace> getSlowRequests() {
+        synchronized (traces) {
+            return new ArrayList<>(traces);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (traces) {
+            traces.clear();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.flapkap.vending_machine.service.impl;
+
+import com.flapkap.vending_machine.dto.response.StartupReport;
+import com.flapkap.vending_machine.service.StartupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class StartupServiceImpl implements StartupService {
+
+    private static final String BEAN_INSTANTIATION = "spring.beans.instantiate";
+    private static final int LOGGED_BEANS = 10;
+
+    private final ApplicationStartup applicationStartup;
+    private volatile List<StartupReport.WarmupStep> warmup = List.of();
+
+    public StartupServiceImpl(ConfigurableApplicationContext context) {
+        this.applicationStartup = context.getApplicationStartup();
+    }
+
+    @Override
+    public StartupReport getReport(int limit) {
+        return new StartupReport(slowestBeans(limit), warmup);
+    }
+
+    @Override
+    public void recordWarmup(List<StartupReport.WarmupStep> steps) {
+        warmup = List.copyOf(steps);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logSlowestBeans() {
+        List<StartupReport.BeanInitialization> slowest = slowestBeans(LOGGED_BEANS);
+        if (!slowest.isEmpty()) {
+            log.info("Slowest bean initializations: {}", slowest);
+        }
+    }
+
+    private List<StartupReport.BeanInitialization> slowestBeans(int limit) {
+        if (!(applicationStartup instanceof BufferingApplicationStartup buffering)) {
+            return List.of();
+        }
+        // Read without draining, so the actuator startup endpoint still sees every step
+        List<StartupTimeline.TimelineEvent> events = buffering.getBufferedTimeline().getEvents();
+
+        // A bean's own time is its step minus the steps nested directly inside it
+        Map<Long, Duration> nested = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            Long parentId = event.getStartupStep().getParentId();
+            if (parentId != null) {
+                nested.merge(parentId, event.getDuration(), Duration::plus);
+            }
+        }
+
+        return events.stream()
+                .filter(event -> BEAN_INSTANTIATION.equals(event.getStartupStep().getName()))
+                .map(event -> {
+                    Duration total = event.getDuration();
+                    Duration self = total.minus(nested.getOrDefault(event.getStartupStep().getId(), Duration.ZERO));
+                    return new StartupReport.BeanInitialization(
+                            tag(event.getStartupStep(), "beanName"),
+                            tag(event.getStartupStep(), "beanType"),
+                            millis(self), millis(total));
+                })
+                .sorted(Comparator.comparingDouble(StartupReport.BeanInitialization::selfMillis).reversed())
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals(key)) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+}
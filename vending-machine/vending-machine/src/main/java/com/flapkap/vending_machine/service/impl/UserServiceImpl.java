@@ -1,5 +1,6 @@
 package com.flapkap.vending_machine.service.impl;
 
+import com.flapkap.vending_machine.dto.Role;
 import com.flapkap.vending_machine.dto.User;
 import com.flapkap.vending_machine.exception.ResourceNotFoundException;
 import com.flapkap.vending_machine.entity.UserEntity;
@@ -7,12 +8,14 @@ import com.flapkap.vending_machine.repository.UserRepository;
 import com.flapkap.vending_machine.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -21,12 +24,11 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final ObjectMapper objectMapper;
 
 
     @Override
     public void updateUser(String userName, User user) {
-        log.info("Updating user with username: {}", userName);
+        log.debug("Updating user with username: {}", userName);
 
         UserEntity existingUser = userRepository.findByUsername(userName)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + userName));
@@ -45,7 +47,15 @@ public class UserServiceImpl implements UserService {
         }
 
         if (user.roles() != null && !user.roles().isEmpty()) {
-            existingUser.setRoles(user.roles());
+            if (user.roles().stream().anyMatch(role -> !role.requestable())) {
+                throw new IllegalArgumentException("Roles can only be BUYER or SELLER");
+            }
+            // ADMIN is granted in the database and survives an update
+            Set<Role> roles = EnumSet.copyOf(user.roles());
+            if (existingUser.getRoles().contains(Role.ADMIN)) {
+                roles.add(Role.ADMIN);
+            }
+            existingUser.setRoles(roles);
         }
 
         if (user.password() != null) {
@@ -53,17 +63,17 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.save(existingUser);
-        log.info("User with username: {} updated successfully", userName);
+        log.debug("User with username: {} updated successfully", userName);
     }
 
     @Override
     public void deleteUser(String userName) {
-        log.info("Deleting user with username: {}", userName);
+        log.debug("Deleting user with username: {}", userName);
 
         UserEntity user = userRepository.findByUsername(userName)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + userName));
 
         userRepository.delete(user);
-        log.info("User with username: {} deleted successfully", userName);
+        log.debug("User with username: {} deleted successfully", userName);
     }
 }
@@ -1,18 +1,31 @@
 package com.flapkap.vending_machine.service.impl;
 
+import com.flapkap.vending_machine.concurrency.ConcurrencyMode;
+import com.flapkap.vending_machine.concurrency.RetryingTransactionTemplate;
 import com.flapkap.vending_machine.dto.*;
+import com.flapkap.vending_machine.dto.response.BuyResponse;
+import com.flapkap.vending_machine.dto.response.DepositResponse;
+import com.flapkap.vending_machine.dto.response.ResetResponse;
 import com.flapkap.vending_machine.entity.ProductEntity;
 import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.exception.InsufficientFundsException;
+import com.flapkap.vending_machine.exception.InsufficientStockException;
+import com.flapkap.vending_machine.exception.InvalidCoinException;
 import com.flapkap.vending_machine.exception.ResourceNotFoundException;
+import com.flapkap.vending_machine.exception.VendingException;
+import com.flapkap.vending_machine.metrics.VendingMetrics;
+import com.flapkap.vending_machine.profiling.RecordedOperation;
+import com.flapkap.vending_machine.profiling.VendingOperationEvent;
 import com.flapkap.vending_machine.repository.ProductRepository;
 import com.flapkap.vending_machine.repository.UserRepository;
 import com.flapkap.vending_machine.service.VendorMachineService;
+import com.flapkap.vending_machine.timeout.OperationTimeout;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.validation.Valid;
 import java.util.*;
@@ -20,34 +33,45 @@ import java.util.*;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class VendorMachineServiceImpl implements VendorMachineService {
 
+    private static final String OPERATION_TIMER = "vending.machine.operation";
     private static final List<Integer> ALLOWED_COINS = List.of(5, 10, 20, 50, 100);
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final VendingMetrics vendingMetrics;
+    // Each operation runs in its own transaction so that it can be retried as a whole
+    private final RetryingTransactionTemplate transactions;
 
     @Override
-    public String deposit(@Valid DepositRequest request) {
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "deposit"}, histogram = true)
+    @RecordedOperation("deposit")
+    @OperationTimeout("deposit")
+    public DepositResponse deposit(@Valid DepositRequest request) {
         int amount = request.amount();
-        log.info("Processing deposit request for amount: {} cents", amount);
+        log.debug("Processing deposit request for amount: {} cents", amount);
         
         if (!ALLOWED_COINS.contains(amount)) {
             log.warn("Invalid coin amount attempted: {} cents", amount);
-            throw new IllegalArgumentException("Only 5, 10, 20, 50, or 100 cent coins are accepted");
+            throw new InvalidCoinException();
         }
 
         try {
-            UserEntity currentUser = getCurrentUser();
-            int oldBalance = currentUser.getDeposit();
-            currentUser.setDeposit(oldBalance + amount);
-            userRepository.save(currentUser);
-            
-            log.info("Successfully deposited {} cents for user: {}. Balance: {} -> {}", 
-                    amount, currentUser.getUsername(), oldBalance, currentUser.getDeposit());
-            
-            return String.format("Successfully deposited %d cents. New balance: %d cents", 
-                amount, currentUser.getDeposit());
+            return transactions.execute("deposit", () -> {
+                UserEntity currentUser = getCurrentUser();
+                int oldBalance = currentUser.getDeposit();
+                currentUser.setDeposit(oldBalance + amount);
+                userRepository.save(currentUser);
+                vendingMetrics.coinsDeposited(amount);
+
+                log.debug("Successfully deposited {} cents for user: {}. Balance: {} -> {}",
+                        amount, currentUser.getUsername(), oldBalance, currentUser.getDeposit());
+
+                return new DepositResponse(amount, currentUser.getDeposit());
+            });
+        } catch (VendingException | ResourceNotFoundException e) {
+            log.debug("Deposit of {} cents refused: {}", amount, e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error processing deposit for amount: {} cents", amount, e);
             throw e;
@@ -55,116 +79,131 @@ public class VendorMachineServiceImpl implements VendorMachineService {
     }
 
     @Override
-    @Transactional
-    public String buy(@Valid BuyRequest request) {
-        log.info("Processing buy request with {} items", request.items().size());
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "buy"}, histogram = true)
+    @RecordedOperation("buy")
+    @OperationTimeout("buy")
+    public BuyResponse buy(@Valid BuyRequest request) {
+        log.debug("Processing buy request with {} items", request.items().size());
         
         try {
-            UserEntity buyer = getCurrentUser();
-            log.info("Buy request from user: {} with balance: {} cents", buyer.getUsername(), buyer.getDeposit());
-            
-            List<String> purchaseDetails = new ArrayList<>();
-            int totalCost = 0;
-            
-            // Validate all items first and calculate total cost
-            Map<ProductEntity, Integer> itemsToPurchase = new HashMap<>();
-            
-            for (PurchaseItem item : request.items()) {
-                log.debug("Validating item: {} quantity: {}", item.productName(), item.amountOfProducts());
-                
-                ProductEntity product = productRepository.findByProductName(item.productName())
-                    .orElseThrow(() -> {
-                        log.warn("Product not found: {}", item.productName());
-                        return new ResourceNotFoundException("Product not found with name: " + item.productName());
-                    });
-                
-                // Validate stock
-                if (product.getAmountAvailable() < item.amountOfProducts()) {
-                    log.warn("Insufficient stock for product: {}. Available: {}, Requested: {}", 
-                            item.productName(), product.getAmountAvailable(), item.amountOfProducts());
-                    throw new IllegalArgumentException("Insufficient stock for product: " + item.productName() + 
-                        ". Available: " + product.getAmountAvailable() + ", Requested: " + item.amountOfProducts());
-                }
-                
-                int itemCost = product.getCost() * item.amountOfProducts();
-                totalCost += itemCost;
-                itemsToPurchase.put(product, item.amountOfProducts());
-                
-                purchaseDetails.add(String.format("%s x %d (cost: %d cents)", 
-                    item.productName(), item.amountOfProducts(), itemCost));
-            }
-            
-            log.info("Total cost calculated: {} cents for user: {}", totalCost, buyer.getUsername());
-            
-            // Check if buyer has enough money
-            if (buyer.getDeposit() < totalCost) {
-                log.warn("Insufficient funds for user: {}. Balance: {}, Required: {}", 
-                        buyer.getUsername(), buyer.getDeposit(), totalCost);
-                throw new IllegalArgumentException("Insufficient funds. Balance: " + buyer.getDeposit() + 
-                    " cents, Required: " + totalCost + " cents");
-            }
-            
-            // Process the purchase
-            for (Map.Entry<ProductEntity, Integer> entry : itemsToPurchase.entrySet()) {
-                ProductEntity product = entry.getKey();
-                int quantity = entry.getValue();
-                
-                product.setAmountAvailable(product.getAmountAvailable() - quantity);
-                productRepository.save(product);
-                
-                log.debug("Updated stock for product: {}. New amount: {}", 
-                        product.getProductName(), product.getAmountAvailable());
-            }
-            
-            // Calculate change
-            Map<Integer, Integer> change = calculateChange(buyer.getDeposit() - totalCost);
-            buyer.setDeposit(0); // Reset deposit after purchase
-            userRepository.save(buyer);
-            
-            log.info("Purchase completed successfully for user: {}. Total spent: {} cents", 
-                    buyer.getUsername(), totalCost);
-            
-            // Build response message
-            StringBuilder response = new StringBuilder();
-            response.append("Purchase successful!\n");
-            response.append("Items purchased:\n");
-            for (String detail : purchaseDetails) {
-                response.append("- ").append(detail).append("\n");
-            }
-            response.append("Total spent: ").append(totalCost).append(" cents\n");
-            response.append("Change: ").append(formatChange(change));
-            
-            return response.toString();
+            return transactions.execute("buy", () -> purchase(request));
+        } catch (VendingException | ResourceNotFoundException e) {
+            log.debug("Buy refused: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error processing buy request", e);
             throw e;
         }
     }
 
-    @Override
-    public String reset() {
-        log.info("Processing reset request");
+    private BuyResponse purchase(BuyRequest request) {
+        UserEntity buyer = getCurrentUser();
+        log.debug("Buy request from user: {} with balance: {} cents", buyer.getUsername(), buyer.getDeposit());
         
-        try {
-            UserEntity currentUser = getCurrentUser();
-            int currentDeposit = currentUser.getDeposit();
-            
-            log.info("Resetting deposit for user: {}. Current deposit: {} cents", 
-                    currentUser.getUsername(), currentDeposit);
-            
-            if (currentDeposit == 0) {
-                log.info("No deposit to reset for user: {}", currentUser.getUsername());
-                return "No deposit to reset";
+        int totalCost = 0;
+        
+        Map<String, ProductEntity> lockedProducts = new HashMap<>();
+        if (transactions.mode() == ConcurrencyMode.PESSIMISTIC) {
+            // Lock in name order so that two carts sharing products cannot deadlock
+            request.items().stream()
+                    .map(PurchaseItem::productName)
+                    .distinct()
+                    .sorted()
+                    .forEach(name -> productRepository.findLockedByProductName(name)
+                            .ifPresent(product -> lockedProducts.put(name, product)));
+        }
+
+        // Validate all items first and calculate total cost
+        Map<ProductEntity, Integer> itemsToPurchase = new HashMap<>();
+        
+        for (PurchaseItem item : request.items()) {
+            log.debug("Validating item: {} quantity: {}", item.productName(), item.amountOfProducts());
+            
+            ProductEntity product = Optional.ofNullable(lockedProducts.get(item.productName()))
+                .or(() -> productRepository.findByProductName(item.productName()))
+                .orElseThrow(() -> {
+                    log.warn("Product not found: {}", item.productName());
+                    return new ResourceNotFoundException("Product not found with name: " + item.productName());
+                });
+            
+            // A product may be listed on several lines; validate stock against the whole order
+            int requested = itemsToPurchase.merge(product, item.amountOfProducts(), Integer::sum);
+            if (product.getAmountAvailable() < requested) {
+                log.warn("Insufficient stock for product: {}. Available: {}, Requested: {}", 
+                        item.productName(), product.getAmountAvailable(), requested);
+                throw new InsufficientStockException(item.productName(), product.getAmountAvailable(),
+                        requested);
             }
             
-            Map<Integer, Integer> change = calculateChange(currentDeposit);
-            currentUser.setDeposit(0);
-            userRepository.save(currentUser);
+            int itemCost = product.getCost() * item.amountOfProducts();
+            totalCost += itemCost;
+        }
+        
+        log.debug("Total cost calculated: {} cents for user: {}", totalCost, buyer.getUsername());
+        VendingOperationEvent.recordCart(itemsToPurchase.size(), totalCost);
+        
+        // Check if buyer has enough money
+        if (buyer.getDeposit() < totalCost) {
+            log.warn("Insufficient funds for user: {}. Balance: {}, Required: {}", 
+                    buyer.getUsername(), buyer.getDeposit(), totalCost);
+            throw new InsufficientFundsException(buyer.getDeposit(), totalCost);
+        }
+        
+        // Process the purchase
+        for (Map.Entry<ProductEntity, Integer> entry : itemsToPurchase.entrySet()) {
+            ProductEntity product = entry.getKey();
+            int quantity = entry.getValue();
             
-            log.info("Successfully reset deposit for user: {}. Returned: {} cents", 
-                    currentUser.getUsername(), currentDeposit);
+            product.setAmountAvailable(product.getAmountAvailable() - quantity);
+            productRepository.save(product);
+            vendingMetrics.itemsSold(product.getProductName(), quantity);
             
-            return "Deposit reset successfully. Returned: " + formatChange(change);
+            log.debug("Updated stock for product: {}. New amount: {}", 
+                    product.getProductName(), product.getAmountAvailable());
+        }
+        
+        // Calculate change
+        int change = buyer.getDeposit() - totalCost;
+        buyer.setDeposit(0); // Reset deposit after purchase
+        userRepository.save(buyer);
+        
+        log.debug("Purchase completed successfully for user: {}. Total spent: {} cents", 
+                buyer.getUsername(), totalCost);
+        
+        return new BuyResponse(totalCost, request.items(), change, calculateChange(change));
+    }
+
+    @Override
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "reset"}, histogram = true)
+    @RecordedOperation("reset")
+    @OperationTimeout("reset")
+    public ResetResponse reset() {
+        log.debug("Processing reset request");
+        
+        try {
+            return transactions.execute("reset", () -> {
+                UserEntity currentUser = getCurrentUser();
+                int currentDeposit = currentUser.getDeposit();
+
+                log.debug("Resetting deposit for user: {}. Current deposit: {} cents", 
+                        currentUser.getUsername(), currentDeposit);
+
+                if (currentDeposit == 0) {
+                    log.debug("No deposit to reset for user: {}", currentUser.getUsername());
+                    return new ResetResponse(0, List.of());
+                }
+
+                currentUser.setDeposit(0);
+                userRepository.save(currentUser);
+
+                log.debug("Successfully reset deposit for user: {}. Returned: {} cents", 
+                        currentUser.getUsername(), currentDeposit);
+
+                return new ResetResponse(currentDeposit, calculateChange(currentDeposit));
+            });
+        } catch (VendingException | ResourceNotFoundException e) {
+            log.debug("Reset refused: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error processing reset request", e);
             throw e;
@@ -176,23 +215,29 @@ public class VendorMachineServiceImpl implements VendorMachineService {
         String username = authentication.getName();
         log.debug("Getting current user: {}", username);
         
-        return userRepository.findByUsername(username)
+        Optional<UserEntity> user = transactions.mode() == ConcurrencyMode.PESSIMISTIC
+                ? userRepository.findLockedByUsername(username)
+                : userRepository.findByUsername(username);
+        return user
             .orElseThrow(() -> {
                 log.error("User not found: {}", username);
                 return new ResourceNotFoundException("User not found with username: " + username);
             });
     }
 
-    private Map<Integer, Integer> calculateChange(int amount) {
+    /**
+     * @return the coins making up the amount, largest first
+     */
+    private List<Integer> calculateChange(int amount) {
         log.debug("Calculating change for amount: {} cents", amount);
         
-        Map<Integer, Integer> change = new LinkedHashMap<>();
+        List<Integer> change = new ArrayList<>();
         int[] coins = {100, 50, 20, 10, 5};
         
         for (int coin : coins) {
             if (amount >= coin) {
                 int count = amount / coin;
-                change.put(coin, count);
+                change.addAll(Collections.nCopies(count, coin));
                 amount %= coin;
                 log.debug("Change: {} x {} cent coins", count, coin);
             }
@@ -200,19 +245,4 @@ public class VendorMachineServiceImpl implements VendorMachineService {
         
         return change;
     }
-    
-    private String formatChange(Map<Integer, Integer> change) {
-        if (change.isEmpty()) {
-            return "No change";
-        }
-        
-        List<String> parts = new ArrayList<>();
-        for (Map.Entry<Integer, Integer> entry : change.entrySet()) {
-            parts.add(String.format("%d x %d cent%s", 
-                entry.getValue(), 
-                entry.getKey(),
-                entry.getKey() != 1 ? "s" : ""));
-        }
-        return String.join(", ", parts);
-    }
 }
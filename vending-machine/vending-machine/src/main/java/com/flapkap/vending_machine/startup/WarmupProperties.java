@@ -0,0 +1,23 @@
+package com.flapkap.vending_machine.startup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * In-process warm-up of the hot paths before the instance reports ready.
+ *
+ * @param enabled            run the warm-up at startup
+ * @param iterations         calls per in-memory step: token verification and JSON
+ * @param databaseIterations catalog reads, and dry-run purchases that are rolled back
+ * @param timeout            overall budget; steps still running when it is spent stop early
+ */
+@ConfigurationProperties(prefix = "vending.warmup")
+public record WarmupProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000") int iterations,
+        @DefaultValue("100") int databaseIterations,
+        @DefaultValue("30s") Duration timeout
+) {
+}
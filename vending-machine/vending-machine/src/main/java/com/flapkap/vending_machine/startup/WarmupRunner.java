@@ -0,0 +1,151 @@
+package com.flapkap.vending_machine.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.dto.BuyRequest;
+import com.flapkap.vending_machine.dto.DepositRequest;
+import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.PurchaseItem;
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.dto.response.BuyResponse;
+import com.flapkap.vending_machine.dto.response.StartupReport;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.repository.ProductRepository;
+import com.flapkap.vending_machine.repository.UserRepository;
+import com.flapkap.vending_machine.security.JwtService;
+import com.flapkap.vending_machine.security.RoleAuthorities;
+import com.flapkap.vending_machine.service.ProductService;
+import com.flapkap.vending_machine.service.StartupService;
+import com.flapkap.vending_machine.service.VendorMachineService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Runs the request hot paths in-process before the instance takes traffic, so the first
+ * requests after a deploy do not pay for class loading, cold JIT and empty caches.
+ * Application runners finish before Spring Boot reports the readiness state
+ * {@code ACCEPTING_TRAFFIC}, so {@code /actuator/health/readiness} stays down until
+ * the warm-up is done. A failing step is logged and never prevents startup.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(WarmupProperties.class)
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String WARMUP_PREFIX = "warmup-";
+
+    private final WarmupProperties properties;
+    private final JwtService jwtService;
+    private final ProductService productService;
+    private final VendorMachineService vendorMachineService;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final StartupService startupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.enabled()) {
+            return;
+        }
+        long deadline = System.nanoTime() + properties.timeout().toNanos();
+        List<StartupReport.WarmupStep> steps = new ArrayList<>();
+        steps.add(runStep("jwt-verify", properties.iterations(), deadline, tokenVerification()));
+        steps.add(runStep("catalog", properties.databaseIterations(), deadline, productService::getAllProducts));
+        steps.add(runStep("json", properties.iterations(), deadline, jsonRoundTrip()));
+        steps.add(runStep("dry-run-buy", properties.databaseIterations(), deadline, this::dryRunPurchase));
+        startupService.recordWarmup(steps);
+        log.info("Warm-up finished: {}", steps);
+    }
+
+    private StartupReport.WarmupStep runStep(String name, int iterations, long deadline, Runnable body) {
+        long start = System.nanoTime();
+        int done = 0;
+        String outcome = "ok";
+        try {
+            while (done < iterations) {
+                if (System.nanoTime() - deadline > 0) {
+                    outcome = "timed out";
+                    break;
+                }
+                body.run();
+                done++;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Warm-up step {} failed after {} iterations", name, done, e);
+            outcome = "failed: " + e.getMessage();
+        }
+        return new StartupReport.WarmupStep(name, done, (System.nanoTime() - start) / 1_000_000.0, outcome);
+    }
+
+    private Runnable tokenVerification() {
+        UserDetails user = User.withUsername(WARMUP_PREFIX + "token").password("").roles(Role.BUYER.name()).build();
+        String token = jwtService.generateToken(user);
+        return () -> jwtService.isTokenValid(token, user);
+    }
+
+    private Runnable jsonRoundTrip() {
+        List<Product> catalog = List.of(new Product(10, 50, WARMUP_PREFIX + "cola", 1L),
+                new Product(3, 120, WARMUP_PREFIX + "chips", 1L));
+        BuyResponse purchase = new BuyResponse(170, List.of(new PurchaseItem(WARMUP_PREFIX + "cola", 1),
+                new PurchaseItem(WARMUP_PREFIX + "chips", 1)), 30, List.of(20, 10));
+        return () -> {
+            try {
+                objectMapper.readValue(objectMapper.writeValueAsBytes(catalog), Product[].class);
+                objectMapper.writeValueAsBytes(purchase);
+                objectMapper.readValue(objectMapper.writeValueAsBytes(new BuyRequest(
+                        List.of(new PurchaseItem(WARMUP_PREFIX + "cola", 2)))), BuyRequest.class);
+                objectMapper.readValue("{\"amount\":50}", DepositRequest.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * A deposit and a buy by a synthetic buyer of a synthetic product, all in one
+     * transaction that is rolled back: nothing is written and, since the business
+     * counters only count commits, nothing is counted.
+     */
+    private void dryRunPurchase() {
+        String suffix = UUID.randomUUID().toString();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                UserEntity seller = userRepository.save(new UserEntity(
+                        null, WARMUP_PREFIX + "seller-" + suffix, "", 0, Set.of(Role.SELLER)));
+                UserEntity buyer = userRepository.save(new UserEntity(
+                        null, WARMUP_PREFIX + "buyer-" + suffix, "", 0, Set.of(Role.BUYER)));
+                ProductEntity product = productRepository.save(new ProductEntity(
+                        null, 10, 5, WARMUP_PREFIX + "product-" + suffix, seller));
+
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        buyer.getUsername(), null, RoleAuthorities.of(buyer.getRoles())));
+                vendorMachineService.deposit(new DepositRequest(10));
+                vendorMachineService.buy(new BuyRequest(List.of(new PurchaseItem(product.getProductName(), 1))));
+                status.setRollbackOnly();
+            });
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.flapkap.vending_machine.timeout;
+
+import java.time.Duration;
+
+/**
+ * The point in time by which the operation running on this thread must be done. Set by
+ * {@link OperationTimeoutAspect} and read by the JDBC layer and transaction templates.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final String operation;
+    private final Duration timeout;
+    private final long expiresAt;
+
+    private Deadline(String operation, Duration timeout) {
+        this.operation = operation;
+        this.timeout = timeout;
+        this.expiresAt = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * @return the deadline of the operation running on this thread, or {@code null}
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    static Deadline start(String operation, Duration timeout) {
+        Deadline deadline = new Deadline(operation, timeout);
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public String operation() {
+        return operation;
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public long remainingNanos() {
+        return expiresAt - System.nanoTime();
+    }
+
+    public boolean expired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @return the remaining time rounded up to whole seconds, at least one, for the
+     * second-based JDBC and transaction timeouts
+     */
+    public int remainingSeconds() {
+        return (int) Math.max(1, (remainingNanos() + 999_999_999L) / 1_000_000_000L);
+    }
+}
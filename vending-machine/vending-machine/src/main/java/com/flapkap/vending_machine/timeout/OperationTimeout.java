@@ -0,0 +1,20 @@
+package com.flapkap.vending_machine.timeout;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated method under the deadline configured for the operation in
+ * {@code vending.timeouts.operations}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OperationTimeout {
+
+    /**
+     * Operation name looked up in the configuration, e.g. {@code buy}.
+     */
+    String value();
+}
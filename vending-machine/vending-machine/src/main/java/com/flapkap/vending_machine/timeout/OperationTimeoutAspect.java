@@ -0,0 +1,70 @@
+package com.flapkap.vending_machine.timeout;
+
+import com.flapkap.vending_machine.exception.OperationTimeoutException;
+import com.flapkap.vending_machine.metrics.VendingMetrics;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.TransactionException;
+
+import java.time.Duration;
+
+/**
+ * Gives {@link OperationTimeout} methods their configured deadline. Ordered outside the
+ * transaction advice, next to the profiling aspects, so that the commit counts towards
+ * the deadline. A nested operation runs under the deadline of the outer one. Data access
+ * failures past the deadline, including those of cancelled statements, surface as an
+ * {@link OperationTimeoutException} and are counted in {@code vending.operation.timeouts}.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OperationTimeoutAspect {
+
+    private final TimeoutProperties properties;
+    private final VendingMetrics vendingMetrics;
+
+    public OperationTimeoutAspect(TimeoutProperties properties, VendingMetrics vendingMetrics) {
+        this.properties = properties;
+        this.vendingMetrics = vendingMetrics;
+    }
+
+    @Around("@annotation(com.flapkap.vending_machine.timeout.OperationTimeout)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (Deadline.current() != null) {
+            return joinPoint.proceed();
+        }
+        String operation = operationName(joinPoint);
+        Duration timeout = properties.operations().get(operation);
+        if (timeout == null) {
+            return joinPoint.proceed();
+        }
+
+        Deadline deadline = Deadline.start(operation, timeout);
+        try {
+            return joinPoint.proceed();
+        } catch (DataAccessException | TransactionException e) {
+            if (deadline.expired() || e instanceof QueryTimeoutException) {
+                vendingMetrics.operationTimedOut(operation);
+                throw new OperationTimeoutException(operation, timeout, e);
+            }
+            throw e;
+        } finally {
+            Deadline.clear();
+        }
+    }
+
+    private static String operationName(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        OperationTimeout annotation = AnnotatedElementUtils.findMergedAnnotation(
+                AopUtils.getMostSpecificMethod(signature.getMethod(), targetClass), OperationTimeout.class);
+        return annotation != null ? annotation.value() : signature.getName();
+    }
+}
@@ -0,0 +1,213 @@
+package com.flapkap.vending_machine.timeout;
+
+import com.flapkap.vending_machine.metrics.VendingMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds every statement run under a {@link Deadline} by the time the operation has
+ * left. The statement gets a query timeout, rounded up to whole seconds, which the
+ * database enforces on its own, and is cancelled with {@link Statement#cancel()} from a
+ * timer thread as soon as the deadline passes; on MySQL this also ends a wait for a
+ * row lock.
+ * A statement cancelled this way, or started after the deadline, fails with an
+ * {@link SQLTimeoutException}, which Hibernate and Spring translate into a query
+ * timeout. Statements outside an operation run untouched.
+ * <p>
+ * The timer only cancels a statement that is still executing, so a late timer can never
+ * cancel the next statement run on the same object, or one already closed and handed
+ * back to the pool. The query timeout in place before the first bounded execution is
+ * restored when the statement is closed, so drivers that cache statements do not keep
+ * an operation's timeout.
+ */
+@Slf4j
+public class StatementCanceller implements AutoCloseable {
+
+    private final ScheduledThreadPoolExecutor canceller;
+    private final VendingMetrics vendingMetrics;
+
+    public StatementCanceller(VendingMetrics vendingMetrics) {
+        this.vendingMetrics = vendingMetrics;
+        this.canceller = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "statement-canceller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Most statements finish in time; drop their timers instead of leaving them queued
+        this.canceller.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @return a data source whose connections hand out deadline-bounded statements
+     */
+    public DataSource around(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return wrap(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return wrap(super.getConnection(username, password));
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        canceller.shutdownNow();
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "createStatement", "prepareStatement", "prepareCall" -> {
+                    Statement statement = (Statement) StatementCanceller.invoke(connection, method, args);
+                    yield Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{method.getReturnType()},
+                            new StatementHandler(statement, (Connection) proxy));
+                }
+                default -> StatementCanceller.invoke(connection, method, args);
+            };
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final Connection connection;
+        // Guarded by this; the timer thread and the executing thread meet here
+        private boolean executing;
+        private boolean cancelled;
+        private boolean closed;
+        private Integer previousTimeout;
+
+        private StatementHandler(Statement statement, Connection connection) {
+            this.statement = statement;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            return switch (name) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "getConnection" -> connection;
+                case "close" -> {
+                    close();
+                    yield null;
+                }
+                default -> StatementCanceller.invoke(statement, method, args);
+            };
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            Deadline deadline = Deadline.current();
+            if (deadline == null) {
+                return StatementCanceller.invoke(statement, method, args);
+            }
+            long remaining = deadline.remainingNanos();
+            if (remaining <= 0) {
+                throw new SQLTimeoutException("Deadline of " + deadline.operation() + " passed before the statement ran");
+            }
+
+            if (previousTimeout == null) {
+                previousTimeout = statement.getQueryTimeout();
+            }
+            statement.setQueryTimeout(deadline.remainingSeconds());
+            synchronized (this) {
+                executing = true;
+                cancelled = false;
+            }
+            ScheduledFuture<?> cancellation = canceller.schedule(this::cancel, remaining, TimeUnit.NANOSECONDS);
+            try {
+                return StatementCanceller.invoke(statement, method, args);
+            } catch (SQLException e) {
+                if (wasCancelled() && !(e instanceof SQLTimeoutException)) {
+                    throw new SQLTimeoutException("Statement cancelled at the deadline of " + deadline.operation(), e);
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    executing = false;
+                }
+                cancellation.cancel(false);
+            }
+        }
+
+        private synchronized boolean wasCancelled() {
+            return cancelled;
+        }
+
+        private synchronized void cancel() {
+            if (!executing || closed) {
+                return;
+            }
+            cancelled = true;
+            vendingMetrics.statementCancelled();
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.debug("Could not cancel statement past its deadline: {}", e.getMessage());
+            }
+        }
+
+        private void close() throws SQLException {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            if (previousTimeout != null) {
+                try {
+                    statement.setQueryTimeout(previousTimeout);
+                } catch (SQLException e) {
+                    // A statement whose connection was evicted after a timeout is closed already
+                    log.debug("Could not restore the query timeout: {}", e.getMessage());
+                }
+            }
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.flapkap.vending_machine.timeout;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Time limits for the {@link OperationTimeout} operations.
+ *
+ * @param enabled    give operations a deadline and cancel their statements when it passes
+ * @param operations time limit per operation name, e.g. {@code buy}; operations without
+ *                   an entry run without a deadline
+ */
+@ConfigurationProperties(prefix = "vending.timeouts")
+public record TimeoutProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue Map<String, Duration> operations
+) {
+}
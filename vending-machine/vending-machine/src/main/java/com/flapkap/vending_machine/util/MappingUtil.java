@@ -0,0 +1,32 @@
+package com.flapkap.vending_machine.util;
+
+import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.User;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+
+/**
+ * DTO/entity conversions, implemented by MapStruct at compile time.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+public interface MappingUtil {
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    UserEntity toUserEntity(User user);
+
+    // The password hash never leaves the entity
+    @Mapping(target = "password", constant = "")
+    User toUser(UserEntity entity);
+
+    @Mapping(target = "sellerId", source = "sellerId.id")
+    Product toProduct(ProductEntity entity);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "sellerId", source = "seller")
+    ProductEntity toProductEntity(Product product, UserEntity seller);
+}
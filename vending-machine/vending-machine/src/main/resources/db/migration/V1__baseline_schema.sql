@@ -0,0 +1,27 @@
+-- Schema as previously generated by Hibernate ddl-auto.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    deposit  INT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT  NOT NULL,
+    role    TINYINT,
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE products (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    amount_available INT          NOT NULL,
+    cost             INT          NOT NULL,
+    product_name     VARCHAR(255) NOT NULL,
+    seller_id        BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_products_seller FOREIGN KEY (seller_id) REFERENCES users (id)
+);
@@ -0,0 +1,5 @@
+-- Backs ProductRepository.findByProductName / existsByProductName / deleteByProductName(In)
+CREATE UNIQUE INDEX uk_products_product_name ON products (product_name);
+
+-- Backs seller-scoped queries such as ProductRepository.deleteBySellerId
+CREATE INDEX idx_products_seller_id ON products (seller_id);
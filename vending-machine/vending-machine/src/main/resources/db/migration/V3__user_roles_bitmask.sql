@@ -0,0 +1,11 @@
+-- Roles move from the user_roles collection table into a bitmask on users.
+-- Bit values follow Role.mask(): SELLER (ordinal 0) = 1, BUYER (ordinal 1) = 2.
+ALTER TABLE users ADD COLUMN roles INT NOT NULL DEFAULT 0;
+
+UPDATE users SET roles = COALESCE((
+    SELECT SUM(DISTINCT CASE ur.role WHEN 0 THEN 1 WHEN 1 THEN 2 ELSE 0 END)
+    FROM user_roles ur
+    WHERE ur.user_id = users.id
+), 0);
+
+DROP TABLE user_roles;
@@ -0,0 +1,3 @@
+-- Version columns for optimistic locking of deposits, purchases and restocks.
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
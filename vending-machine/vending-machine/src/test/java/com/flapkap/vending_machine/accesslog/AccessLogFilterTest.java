@@ -0,0 +1,114 @@
+package com.flapkap.vending_machine.accesslog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogFilterTest {
+
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+    private AccessLogWriter writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void doFilter_ShouldAlwaysLogErrorsAndSkipUnsampledSuccesses() throws Exception {
+        AccessLogFilter filter = filter(new AccessLogProperties(0.0, Duration.ofMinutes(1), 64, Duration.ofMillis(5)));
+
+        filter.doFilter(request("/api/v1/products"), new MockHttpServletResponse(), (req, res) -> { });
+        filter.doFilter(request("/api/v1/products/missing"), new MockHttpServletResponse(),
+                (req, res) -> ((HttpServletResponse) res).setStatus(404));
+        writer.close();
+
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"path\":\"/api/v1/products/missing\""));
+        assertTrue(lines.get(0).contains("\"status\":404"));
+    }
+
+    @Test
+    void doFilter_ShouldLogSlowRequestsAndEscapingExceptions() throws Exception {
+        AccessLogFilter filter = filter(new AccessLogProperties(0.0, Duration.ofMillis(20), 64, Duration.ofMillis(5)));
+
+        filter.doFilter(request("/slow"), new MockHttpServletResponse(), (req, res) -> sleep(30));
+        FilterChain failing = (req, res) -> {
+            throw new IllegalStateException("boom");
+        };
+        assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request("/failing"), new MockHttpServletResponse(), failing));
+        writer.close();
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"path\":\"/slow\""));
+        assertTrue(lines.get(1).contains("\"status\":500"));
+        assertTrue(lines.get(1).contains("\"error\":\"IllegalStateException\""));
+    }
+
+    @Test
+    void submit_ShouldKeepEveryEntryFromConcurrentProducersUntilFull() throws Exception {
+        writer = new AccessLogWriter(new AccessLogProperties(1.0, Duration.ofMinutes(1), 1 << 16, Duration.ofMillis(1)),
+                lines::add);
+        int threads = 8;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                await(start);
+                for (int i = 0; i < perThread; i++) {
+                    writer.submit(new AccessLogEntry(null, "GET", "/", null, 200, 0, null, null));
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        writer.close();
+
+        assertEquals(threads * perThread, lines.size());
+    }
+
+    private AccessLogFilter filter(AccessLogProperties properties) {
+        writer = new AccessLogWriter(properties, lines::add);
+        return new AccessLogFilter(writer, properties);
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
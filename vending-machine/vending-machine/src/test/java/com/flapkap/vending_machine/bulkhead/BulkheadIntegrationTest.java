@@ -0,0 +1,140 @@
+package com.flapkap.vending_machine.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.config.BulkheadConfig;
+import com.flapkap.vending_machine.datasource.PoolMetricsTrackerFactory;
+import com.flapkap.vending_machine.dto.response.DataSourcePoolStats;
+import com.flapkap.vending_machine.service.DataSourceStatisticsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "vending.bulkhead.partition-pools=true",
+        "vending.bulkhead.compartments.catalog.max-concurrent=1",
+        "vending.bulkhead.compartments.catalog.max-waiting=0",
+        "vending.bulkhead.pools.catalog.maximum-pool-size=2",
+        "vending.bulkhead.pools.auth.maximum-pool-size=2",
+        "vending.bulkhead.pools.purchases.maximum-pool-size=2"
+})
+@ActiveProfiles("test")
+class BulkheadIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private BulkheadInterceptor bulkheadInterceptor;
+
+    @Autowired
+    private PoolMetricsTrackerFactory poolMetricsTrackerFactory;
+
+    @Autowired
+    private DataSourceStatisticsService dataSourceStatisticsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @Test
+    void limitsThatCanTakeEveryThread_ShouldFailStartup() {
+        // 60 + 100 catalog and 30 + 50 auth requests, counting the waiting ones, on 200 threads
+        BulkheadProperties properties = new BulkheadProperties(true, false, Map.of(
+                Compartment.CATALOG, new BulkheadProperties.Limits(60, 100, Duration.ofMillis(200)),
+                Compartment.AUTH, new BulkheadProperties.Limits(30, 50, Duration.ofSeconds(1))));
+
+        assertThrows(IllegalStateException.class,
+                () -> new BulkheadConfig(properties, meterRegistry, objectMapper, 200));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "BUYER")
+    void fullCatalogCompartment_ShouldNotAffectPurchases() throws Exception {
+        Bulkhead catalog = bulkheadInterceptor.bulkhead(Compartment.CATALOG);
+        assertTrue(catalog.tryAcquire());
+        try {
+            mockMvc.perform(get("/api/v1/products"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.status").value(503));
+
+            mockMvc.perform(post("/api/v1/vendors/deposit")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\":5}"))
+                    .andExpect(status().isOk());
+        } finally {
+            catalog.release();
+        }
+
+        assertEquals(1, meterRegistry.get(Bulkhead.REJECTED).tag("compartment", "catalog").counter().count());
+        mockMvc.perform(get("/api/v1/products")).andExpect(status().isOk());
+        assertEquals(0, catalog.getActive());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "BUYER")
+    void purchases_ShouldUseTheirOwnPool() throws Exception {
+        long before = poolMetricsTrackerFactory.acquireTimes("purchases").count();
+
+        mockMvc.perform(post("/api/v1/vendors/reset")).andExpect(status().isOk());
+
+        assertTrue(poolMetricsTrackerFactory.acquireTimes("purchases").count() > before);
+        assertEquals(0, bulkheadInterceptor.bulkhead(Compartment.PURCHASES).getActive());
+    }
+
+    @Test
+    void login_ShouldUseTheAuthPool() throws Exception {
+        long before = poolMetricsTrackerFactory.acquireTimes("auth").count();
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"nobody\",\"password\":\"wrong\"}"))
+                .andExpect(status().isUnauthorized());
+
+        assertTrue(poolMetricsTrackerFactory.acquireTimes("auth").count() > before);
+    }
+
+    @Test
+    void partitionPools_ShouldBeListedWithTheSharedPool() {
+        Set<String> pools = dataSourceStatisticsService.getDataSourceStatistics().pools().stream()
+                .map(DataSourcePoolStats::pool)
+                .collect(Collectors.toSet());
+
+        assertEquals(Set.of("primary", "catalog", "auth", "purchases"), pools);
+    }
+}
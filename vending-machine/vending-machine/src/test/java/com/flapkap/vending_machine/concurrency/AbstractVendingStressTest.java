@@ -0,0 +1,211 @@
+package com.flapkap.vending_machine.concurrency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.dto.BuyRequest;
+import com.flapkap.vending_machine.dto.DepositRequest;
+import com.flapkap.vending_machine.dto.PurchaseItem;
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.dto.response.BuyResponse;
+import com.flapkap.vending_machine.dto.response.ResetResponse;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.metrics.VendingMetrics;
+import com.flapkap.vending_machine.repository.ProductRepository;
+import com.flapkap.vending_machine.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Fires thousands of concurrent deposits, purchases and resets from a small pool of
+ * buyers at three hot products, then checks that no stock was oversold and no cent
+ * was lost. Each subclass runs it under one {@link ConcurrencyMode}.
+ */
+abstract class AbstractVendingStressTest {
+
+    private static final int BUYERS = 24;
+    private static final int THREADS = 16;
+    private static final int CALLS = 2000;
+    private static final int INITIAL_STOCK = 150;
+    private static final List<ProductEntity> HOT_PRODUCTS = List.of(
+            new ProductEntity(null, INITIAL_STOCK, 5, "Stress Cola", null),
+            new ProductEntity(null, INITIAL_STOCK, 10, "Stress Chips", null),
+            new ProductEntity(null, INITIAL_STOCK, 20, "Stress Candy", null));
+    private static final int[] COINS = {5, 10, 20, 50, 100};
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+
+    private final AtomicLong deposited = new AtomicLong();
+    private final AtomicLong spent = new AtomicLong();
+    private final AtomicLong returned = new AtomicLong();
+    private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        UserEntity seller = userRepository.save(new UserEntity(null, "stress-seller", "password", 0, Set.of(Role.SELLER)));
+        for (int i = 0; i < BUYERS; i++) {
+            userRepository.save(new UserEntity(null, buyer(i), "password", 0, Set.of(Role.BUYER)));
+        }
+        for (ProductEntity product : HOT_PRODUCTS) {
+            productRepository.save(new ProductEntity(null, INITIAL_STOCK, product.getCost(), product.getProductName(), seller));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentOperations_ShouldNeitherOversellNorLoseDeposits() throws Exception {
+        double retriesBefore = retries();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> calls = new ArrayList<>(CALLS);
+            for (int i = 0; i < CALLS; i++) {
+                calls.add(executor.submit(() -> {
+                    randomOperation();
+                    return null;
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%n%s: %d calls from %d threads in %.2fs (%.0f calls/s), %.0f retries, statuses %s%n",
+                getClass().getSimpleName(), CALLS, THREADS, seconds, CALLS / seconds,
+                retries() - retriesBefore, statuses);
+
+        long sold = 0;
+        for (ProductEntity hot : HOT_PRODUCTS) {
+            ProductEntity product = productRepository.findByProductName(hot.getProductName()).orElseThrow();
+            assertTrue(product.getAmountAvailable() >= 0, product.getProductName() + " oversold");
+            sold += (long) (INITIAL_STOCK - product.getAmountAvailable()) * product.getCost();
+        }
+        assertEquals(spent.get(), sold, "Cents charged must equal the value of stock removed");
+
+        long held = userRepository.findAll().stream().mapToLong(UserEntity::getDeposit).sum();
+        assertEquals(deposited.get(), held + spent.get() + returned.get(),
+                "Every deposited cent must still be held, spent or returned");
+        assertTrue(statuses.keySet().stream().noneMatch(status -> status.startsWith("5")),
+                "No call may fail with a server error: " + statuses);
+    }
+
+    private void randomOperation() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String buyer = buyer(random.nextInt(BUYERS));
+        int roll = random.nextInt(100);
+        if (roll < 55) {
+            int coin = COINS[random.nextInt(COINS.length)];
+            MockHttpServletResponse response = perform(post("/api/v1/vendors/deposit")
+                    .with(user(buyer).roles("BUYER"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new DepositRequest(coin))));
+            if (response.getStatus() == 200) {
+                deposited.addAndGet(coin);
+            }
+        } else if (roll < 90) {
+            List<PurchaseItem> items = new ArrayList<>();
+            for (ProductEntity product : HOT_PRODUCTS) {
+                if (random.nextBoolean()) {
+                    items.add(new PurchaseItem(product.getProductName(), 1 + random.nextInt(2)));
+                }
+            }
+            if (items.isEmpty()) {
+                items.add(new PurchaseItem(HOT_PRODUCTS.get(0).getProductName(), 1));
+            }
+            if (random.nextInt(4) == 0) {
+                // The same product on a second line must count against its stock together
+                items.add(new PurchaseItem(items.get(random.nextInt(items.size())).productName(), 1));
+            }
+            MockHttpServletResponse response = perform(post("/api/v1/vendors/buy")
+                    .with(user(buyer).roles("BUYER"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new BuyRequest(items))));
+            if (response.getStatus() == 200) {
+                BuyResponse purchase = objectMapper.readValue(response.getContentAsByteArray(), BuyResponse.class);
+                spent.addAndGet(purchase.totalSpent());
+                returned.addAndGet(purchase.change());
+            }
+        } else {
+            MockHttpServletResponse response = perform(post("/api/v1/vendors/reset")
+                    .with(user(buyer).roles("BUYER")));
+            if (response.getStatus() == 200) {
+                returned.addAndGet(objectMapper.readValue(response.getContentAsByteArray(), ResetResponse.class)
+                        .returned());
+            }
+        }
+    }
+
+    private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        statuses.computeIfAbsent(String.valueOf(response.getStatus()), status -> new LongAdder()).increment();
+        return response;
+    }
+
+    private double retries() {
+        return meterRegistry.find(VendingMetrics.TRANSACTION_RETRIES).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static String buyer(int index) {
+        return "stress-buyer-" + index;
+    }
+}
@@ -0,0 +1,9 @@
+package com.flapkap.vending_machine.concurrency;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = "vending.concurrency.mode=optimistic")
+@ActiveProfiles("test")
+class OptimisticVendingStressTest extends AbstractVendingStressTest {
+}
@@ -0,0 +1,99 @@
+package com.flapkap.vending_machine.configclient;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.context.config.ConfigData;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigSnapshotTest {
+
+    private static final Log LOG = LogFactory.getLog(ConfigSnapshotTest.class);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void write_ShouldRoundTripSourcesInOrderWithTheirOptions() throws Exception {
+        Path file = directory.resolve("vendor-machine-dev.json");
+        ConfigData data = serverResponse(3600000);
+
+        assertTrue(ConfigSnapshot.write(file, data));
+        ConfigData loaded = ConfigSnapshot.toConfigData(ConfigSnapshot.read(file).orElseThrow());
+
+        List<PropertySource<?>> sources = loaded.getPropertySources();
+        assertEquals(List.of("configserver:vendor-machine-dev.yml", "configserver:application.yml"),
+                sources.stream().map(PropertySource::getName).toList());
+        assertEquals(3600000, sources.get(0).getProperty("security.jwt.expiration-time"));
+        assertEquals("secret", sources.get(1).getProperty("security.jwt.secret-key"));
+        assertTrue(loaded.getOptions(sources.get(0)).contains(ConfigData.Option.PROFILE_SPECIFIC));
+        assertFalse(loaded.getOptions(sources.get(1)).contains(ConfigData.Option.PROFILE_SPECIFIC));
+    }
+
+    @Test
+    void write_ShouldReportWhetherTheSnapshotChanged() throws Exception {
+        Path file = directory.resolve("snapshots").resolve("vendor-machine-dev.json");
+
+        assertTrue(ConfigSnapshot.write(file, serverResponse(3600000)));
+        assertFalse(ConfigSnapshot.write(file, serverResponse(3600000)));
+        assertTrue(ConfigSnapshot.write(file, serverResponse(7200000)));
+    }
+
+    @Test
+    void load_ShouldPreferTheSnapshotOverTheServer() throws Exception {
+        Path file = directory.resolve("vendor-machine-dev.json");
+        AtomicInteger fetches = new AtomicInteger();
+
+        assertNull(ConfigSnapshotLoaderInterceptor.load(file, () -> null, LOG));
+        ConfigSnapshotLoaderInterceptor.fetchAndSave(file, () -> {
+            fetches.incrementAndGet();
+            return serverResponse(3600000);
+        }, LOG);
+        ConfigData loaded = ConfigSnapshotLoaderInterceptor.load(file, () -> {
+            fetches.incrementAndGet();
+            return null;
+        }, LOG);
+
+        assertEquals(1, fetches.get());
+        assertEquals(2, loaded.getPropertySources().size());
+    }
+
+    @Test
+    void load_ShouldIgnoreUnreadableSnapshots() throws Exception {
+        Path file = directory.resolve("vendor-machine-dev.json");
+        Files.writeString(file, "{ not json");
+
+        assertNull(ConfigSnapshotLoaderInterceptor.load(file, () -> null, LOG));
+    }
+
+    @Test
+    void fetchAndSave_ShouldNotWriteASnapshotWhenTheServerIsUnavailable() {
+        Path file = directory.resolve("vendor-machine-dev.json");
+
+        assertNull(ConfigSnapshotLoaderInterceptor.fetchAndSave(file, () -> null, LOG));
+        assertFalse(Files.exists(file));
+    }
+
+    private static ConfigData serverResponse(int expirationTime) {
+        PropertySource<?> profileSource = new MapPropertySource("configserver:vendor-machine-dev.yml",
+                Map.of("security.jwt.expiration-time", expirationTime));
+        PropertySource<?> defaultSource = new MapPropertySource("configserver:application.yml",
+                Map.of("security.jwt.secret-key", "secret"));
+        return new ConfigData(List.of(profileSource, defaultSource), propertySource -> propertySource == profileSource
+                ? ConfigData.Options.of(ConfigData.Option.IGNORE_IMPORTS, ConfigData.Option.PROFILE_SPECIFIC)
+                : ConfigData.Options.of(ConfigData.Option.IGNORE_IMPORTS));
+    }
+}
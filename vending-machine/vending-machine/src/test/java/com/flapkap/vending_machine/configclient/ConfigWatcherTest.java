@@ -0,0 +1,112 @@
+package com.flapkap.vending_machine.configclient;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class ConfigWatcherTest {
+
+    private final AtomicReference<String> serverEtag = new AtomicReference<>("\"v1\"");
+    private final List<String> receivedEtags = new ArrayList<>();
+    private final ConfigSnapshotRefresher refresher = mock(ConfigSnapshotRefresher.class);
+    private HttpServer server;
+    private Thread watcherThread;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/watch/vendor-machine/default", exchange -> {
+            String clientEtag = exchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+            synchronized (receivedEtags) {
+                receivedEtags.add(clientEtag);
+            }
+            String current = serverEtag.get();
+            exchange.getResponseHeaders().add(HttpHeaders.ETAG, current);
+            if (current.equals(clientEtag)) {
+                sleep(50);
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        watcherThread.interrupt();
+        watcherThread.join(5_000);
+        server.stop(0);
+    }
+
+    @Test
+    void watch_ShouldRefreshOnlyWhenTheServerReportsAChange() {
+        startWatching();
+        awaitRequestWith("\"v1\"");
+        verify(refresher, never()).refreshNow();
+
+        serverEtag.set("\"v2\"");
+
+        verify(refresher, timeout(5_000).times(1)).refreshNow();
+        synchronized (receivedEtags) {
+            assertEquals(null, receivedEtags.get(0), "the first request has no version yet");
+            assertEquals("\"v1\"", receivedEtags.get(1));
+        }
+    }
+
+    private void awaitRequestWith(String etag) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            synchronized (receivedEtags) {
+                if (receivedEtags.contains(etag)) {
+                    return;
+                }
+            }
+            sleep(10);
+        }
+        fail("no request with " + etag);
+    }
+
+    private void startWatching() {
+        ConfigWatcher watcher = new ConfigWatcher(
+                new ConfigWatchProperties(true, Duration.ofSeconds(1), Duration.ofMillis(100)),
+                emptyProvider(), emptyProvider(), refresher, new StandardEnvironment());
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/watch/vendor-machine/default");
+        watcherThread = new Thread(() -> watcher.watch(HttpClient.newHttpClient(), uri, null), "config-watch-test");
+        watcherThread.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> emptyProvider() {
+        return mock(ObjectProvider.class);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.flapkap.vending_machine.configclient;
+
+import com.flapkap.vending_machine.config.EntityCacheConfig;
+import com.flapkap.vending_machine.security.JwtService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScope;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.cache.CacheManager;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Applies a configuration change the way a context refresh does: new property values,
+ * an {@link EnvironmentChangeEvent} and a refresh of the refresh scope.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LiveConfigRefreshIntegrationTest {
+
+    private static final String CHANGES = "liveConfigRefreshChanges";
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    @Autowired
+    private RefreshScope refreshScope;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Autowired
+    private CacheManager entityCacheManager;
+
+    @AfterEach
+    void tearDown() {
+        environment.getPropertySources().remove(CHANGES);
+        refresh(Map.of());
+    }
+
+    @Test
+    void refresh_ShouldApplyJwtExpirationPoolSizeAndCacheSettings_WithoutARestart() {
+        int poolSize = dataSource.getHikariConfigMXBean().getMaximumPoolSize();
+
+        refresh(Map.of(
+                "security.jwt.expiration-time", "60000",
+                "spring.datasource.hikari.maximum-pool-size", String.valueOf(poolSize + 3),
+                "vending.cache.regions.products.max-entries", "50",
+                "vending.cache.regions.products.time-to-live", "1m"));
+
+        String token = jwtService.generateToken(User.withUsername("refreshed").password("x").roles("BUYER").build());
+        long expiresIn = jwtService.extractClaim(token, claims -> claims.getExpiration()).getTime() - new Date().getTime();
+        assertTrue(expiresIn <= 60_000 && expiresIn > 50_000, "token should use the refreshed expiration: " + expiresIn);
+
+        assertEquals(poolSize + 3, dataSource.getHikariConfigMXBean().getMaximumPoolSize());
+
+        org.ehcache.Cache<?, ?> products = entityCacheManager.getCache(EntityCacheConfig.PRODUCTS_REGION)
+                .unwrap(org.ehcache.Cache.class);
+        assertEquals(50, products.getRuntimeConfiguration().getResourcePools()
+                .getPoolForResource(org.ehcache.config.ResourceType.Core.HEAP).getSize());
+    }
+
+    private void refresh(Map<String, Object> changes) {
+        if (!changes.isEmpty()) {
+            environment.getPropertySources().addFirst(new MapPropertySource(CHANGES, changes));
+        }
+        context.publishEvent(new EnvironmentChangeEvent(context, Map.of(
+                "security.jwt.expiration-time", "",
+                "spring.datasource.hikari.maximum-pool-size", "",
+                "vending.cache.regions.products.max-entries", "",
+                "vending.cache.regions.products.time-to-live", "").keySet()));
+        refreshScope.refreshAll();
+    }
+}
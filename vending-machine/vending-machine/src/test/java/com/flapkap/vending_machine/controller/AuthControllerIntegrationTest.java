@@ -159,4 +159,15 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.roles[0]").value("BUYER"))
                 .andExpect(jsonPath("$.deposit").value(50));
     }
+
+    @Test
+    void signup_ShouldReturnBadRequest_WhenAdminRole() throws Exception {
+        User adminUser = new User("admin@example.com", "password123", 0, Set.of(Role.SELLER, Role.ADMIN));
+
+        mockMvc.perform(post("/api/v1/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(adminUser)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Roles can only be BUYER or SELLER"));
+    }
 }
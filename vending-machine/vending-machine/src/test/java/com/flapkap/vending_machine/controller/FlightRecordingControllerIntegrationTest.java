@@ -0,0 +1,165 @@
+package com.flapkap.vending_machine.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.dto.BuyRequest;
+import com.flapkap.vending_machine.dto.PurchaseItem;
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.repository.ProductRepository;
+import com.flapkap.vending_machine.repository.UserRepository;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not transactional so that the purchase is flushed and its statements show up in the event.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FlightRecordingControllerIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        UserEntity seller = userRepository.save(new UserEntity(null, "jfr-seller", "password", 0, Set.of(Role.SELLER)));
+        userRepository.save(new UserEntity(null, "jfr-buyer", "password", 100, Set.of(Role.BUYER)));
+        productRepository.save(new ProductEntity(null, 10, 30, "Recorded Cola", seller));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void dumpRecording_ShouldContainVendingOperationEvents() throws Exception {
+        String started = mockMvc.perform(post("/api/v1/admin/recordings"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(started).get("id").asLong();
+
+        mockMvc.perform(post("/api/v1/vendors/buy")
+                        .with(user("jfr-buyer").roles("BUYER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BuyRequest(List.of(new PurchaseItem("Recorded Cola", 2))))))
+                .andExpect(status().isOk());
+
+        byte[] dump = mockMvc.perform(get("/api/v1/admin/recordings/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"vending-" + id + ".jfr\""))
+                .andReturn().getResponse().getContentAsByteArray();
+        mockMvc.perform(delete("/api/v1/admin/recordings/" + id))
+                .andExpect(status().isNoContent());
+
+        Path file = Files.createTempFile("vending-test-", ".jfr");
+        try {
+            Files.write(file, dump);
+            RecordedEvent buy = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("com.flapkap.vending.Operation"))
+                    .filter(event -> "buy".equals(event.getString("operation")))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals("success", buy.getString("outcome"));
+            assertEquals(1, buy.getInt("cartSize"));
+            assertEquals(60, buy.getInt("totalCost"));
+            assertTrue(buy.getInt("statementCount") > 0, "Commit flush should be counted");
+            // Environment, system properties and JVM arguments hold credentials
+            assertTrue(RecordingFile.readAllEvents(file).stream()
+                    .map(event -> event.getEventType().getName())
+                    .noneMatch(name -> name.equals("jdk.InitialEnvironmentVariable")
+                            || name.equals("jdk.InitialSystemProperty")
+                            || name.equals("jdk.JVMInformation")));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void startRecording_ShouldCapDurationAndNumberOfRecordings() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try {
+            String started = mockMvc.perform(post("/api/v1/admin/recordings").param("duration", "PT24H"))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.duration").value(1800.0))
+                    .andReturn().getResponse().getContentAsString();
+            ids.add(objectMapper.readTree(started).get("id").asLong());
+            for (int i = 1; i < 3; i++) {
+                started = mockMvc.perform(post("/api/v1/admin/recordings"))
+                        .andExpect(status().isCreated())
+                        .andReturn().getResponse().getContentAsString();
+                ids.add(objectMapper.readTree(started).get("id").asLong());
+            }
+
+            mockMvc.perform(post("/api/v1/admin/recordings"))
+                    .andExpect(status().isBadRequest());
+        } finally {
+            for (long id : ids) {
+                mockMvc.perform(delete("/api/v1/admin/recordings/" + id)).andExpect(status().isNoContent());
+            }
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void startRecording_ShouldReturnForbidden_ForSeller() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/recordings"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void stopRecording_ShouldReturnNotFound_WhenRecordingDoesNotExist() throws Exception {
+        mockMvc.perform(delete("/api/v1/admin/recordings/999999"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,18 +1,29 @@
 package com.flapkap.vending_machine.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.flapkap.vending_machine.config.ProtobufSchemaHttpMessageConverter;
 import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.ProductPatch;
 import com.flapkap.vending_machine.dto.Role;
 import com.flapkap.vending_machine.dto.User;
+import com.flapkap.vending_machine.entity.ProductEntity;
 import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.profiling.SqlStatementBudget;
 import com.flapkap.vending_machine.repository.ProductRepository;
 import com.flapkap.vending_machine.repository.UserRepository;
 import com.flapkap.vending_machine.service.AuthService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
@@ -21,8 +32,12 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.List;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,7 +63,11 @@ class ProductControllerIntegrationTest {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private MockMvc mockMvc;
+    private SqlStatementBudget sql;
     private UserEntity testSeller;
 
     @BeforeEach
@@ -57,6 +76,7 @@ class ProductControllerIntegrationTest {
                 .webAppContextSetup(context)
                 .apply(springSecurity())
                 .build();
+        sql = new SqlStatementBudget(mockMvc, entityManager);
 
         // Clean up
         productRepository.deleteAll();
@@ -70,22 +90,36 @@ class ProductControllerIntegrationTest {
 
     @Test
     void getAllProducts_ShouldReturnEmptyList_WhenNoProducts() throws Exception {
-        mockMvc.perform(get("/api/v1/products")
-                        .contentType(MediaType.APPLICATION_JSON))
+        sql.perform(get("/api/v1/products")
+                        .contentType(MediaType.APPLICATION_JSON), 1)
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    @Test
+    void getAllProducts_ShouldIssueOneQuery_ForProductsOfManySellers() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            UserEntity seller = userRepository.save(
+                    new UserEntity(null, "seller" + i + "@test.com", "password", 0, Set.of(Role.SELLER)));
+            productRepository.save(new ProductEntity(null, 5, 100, "Product " + i + "A", seller));
+            productRepository.save(new ProductEntity(null, 5, 100, "Product " + i + "B", seller));
+        }
+
+        sql.perform(get("/api/v1/products"), 1)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6));
+    }
+
     @Test
     @WithMockUser(roles = "SELLER")
     void createProduct_ShouldCreateProduct_WhenValidData() throws Exception {
         Product product = new Product(10, 150, "Test Product", testSeller.getId());
 
-        mockMvc.perform(post("/api/v1/products")
+        sql.perform(post("/api/v1/products")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(product)))
+                        .content(objectMapper.writeValueAsString(product)), 2)
                 .andExpect(status().isCreated())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.productName").value("Test Product"))
@@ -128,9 +162,10 @@ class ProductControllerIntegrationTest {
         // Then update it
         Product updatedProduct = new Product(20, 200, "Updated Product", testSeller.getId());
 
-        mockMvc.perform(put("/api/v1/products/Original Product")
+        // The update and the read-back of the stored row
+        sql.perform(put("/api/v1/products/Original Product")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(updatedProduct)))
+                        .content(objectMapper.writeValueAsString(updatedProduct)), 2)
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.productName").value("Updated Product"))
@@ -159,7 +194,7 @@ class ProductControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(product)));
 
         // Then delete it
-        mockMvc.perform(delete("/api/v1/products/Product To Delete"))
+        sql.perform(delete("/api/v1/products/Product To Delete"), 1)
                 .andExpect(status().isNoContent());
 
         // Verify it's deleted
@@ -181,4 +216,162 @@ class ProductControllerIntegrationTest {
         mockMvc.perform(delete("/api/v1/products/SomeProduct"))
                 .andExpect(status().isForbidden());
     }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void patchProduct_ShouldUpdateOnlySuppliedFields() throws Exception {
+        Product product = new Product(10, 150, "Patch Product", testSeller.getId());
+        mockMvc.perform(post("/api/v1/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product)));
+
+        ProductPatch patch = new ProductPatch(null, 175, null, null);
+
+        sql.perform(patch("/api/v1/products/Patch Product")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch)), 1)
+                .andExpect(status().isNoContent());
+
+        ProductEntity patched = productRepository.findByProductName("Patch Product").orElseThrow();
+        assertEquals(175, patched.getCost());
+        assertEquals(10, patched.getAmountAvailable());
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void patchProduct_ShouldDetachOnlyTheStaleProduct() throws Exception {
+        ProductEntity stale = productRepository.save(new ProductEntity(null, 10, 150, "Managed Product", testSeller));
+
+        mockMvc.perform(patch("/api/v1/products/Managed Product")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProductPatch(null, 175, "Renamed Product", null))))
+                .andExpect(status().isNoContent());
+
+        assertFalse(entityManager.contains(stale));
+        assertTrue(entityManager.contains(testSeller));
+        ProductEntity patched = productRepository.findByProductName("Renamed Product").orElseThrow();
+        assertEquals(175, patched.getCost());
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void patchProduct_ShouldReturnNotFound_WhenProductDoesNotExist() throws Exception {
+        ProductPatch patch = new ProductPatch(5, null, null, null);
+
+        mockMvc.perform(patch("/api/v1/products/NonExistent")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Product not found with name: NonExistent"));
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void patchProduct_ShouldReturnNotFound_WhenSellerDoesNotExist() throws Exception {
+        Product product = new Product(10, 150, "Patch Product", testSeller.getId());
+        mockMvc.perform(post("/api/v1/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product)));
+
+        ProductPatch patch = new ProductPatch(null, null, null, -1L);
+
+        mockMvc.perform(patch("/api/v1/products/Patch Product")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void patchProduct_ShouldReturnBadRequest_WhenNoFieldsSupplied() throws Exception {
+        mockMvc.perform(patch("/api/v1/products/AnyProduct")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void deleteProducts_ShouldDeleteAllNamedProducts() throws Exception {
+        for (String name : List.of("Bulk A", "Bulk B", "Bulk C")) {
+            mockMvc.perform(post("/api/v1/products")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new Product(1, 10, name, testSeller.getId()))));
+        }
+
+        sql.perform(delete("/api/v1/products").param("names", "Bulk A", "Bulk C"), 1)
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].productName").value("Bulk B"));
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void deleteProductsBySeller_ShouldDeleteSellerProducts() throws Exception {
+        for (String name : List.of("Seller A", "Seller B")) {
+            mockMvc.perform(post("/api/v1/products")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new Product(1, 10, name, testSeller.getId()))));
+        }
+
+        sql.perform(delete("/api/v1/products/sellers/" + testSeller.getId()), 1)
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void getAllProducts_ShouldReturnCompactJson_ByDefault() throws Exception {
+        productRepository.save(new ProductEntity(null, 5, 100, "Compact Product", testSeller));
+
+        String body = mockMvc.perform(get("/api/v1/products"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertFalse(body.contains("\n"));
+        assertFalse(body.contains(": "));
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void getAllProducts_ShouldReturnCbor_WhenAccepted() throws Exception {
+        productRepository.save(new ProductEntity(null, 5, 100, "Cbor Product", testSeller));
+
+        byte[] body = mockMvc.perform(get("/api/v1/products").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<Product> products = new CBORMapper().readValue(body, new TypeReference<>() { });
+        assertEquals(List.of(new Product(5, 100, "Cbor Product", testSeller.getId())), products);
+    }
+
+    @Test
+    @WithMockUser(roles = "SELLER")
+    void createProduct_ShouldRoundTripProtobuf_WhenRequested() throws Exception {
+        NativeProtobufSchema schema = ProtobufSchemaLoader.std.loadNative(
+                new ClassPathResource("proto/vending.proto").getInputStream(), true);
+        ProtobufMapper protobufMapper = new ProtobufMapper();
+        Product product = new Product(10, 150, "Proto Product", testSeller.getId());
+
+        byte[] body = mockMvc.perform(post("/api/v1/products")
+                        .contentType(ProtobufSchemaHttpMessageConverter.PROTOBUF)
+                        .accept(ProtobufSchemaHttpMessageConverter.PROTOBUF)
+                        .content(protobufMapper.writer(schema.forType("Product")).writeValueAsBytes(product)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(ProtobufSchemaHttpMessageConverter.PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(product, protobufMapper.readerFor(Product.class).with(schema.forType("Product")).readValue(body));
+        mockMvc.perform(get("/api/v1/products").accept(ProtobufSchemaHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ProtobufSchemaHttpMessageConverter.PROTOBUF));
+    }
 }
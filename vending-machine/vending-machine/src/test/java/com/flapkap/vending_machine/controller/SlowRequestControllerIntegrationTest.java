@@ -0,0 +1,162 @@
+package com.flapkap.vending_machine.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.dto.BuyRequest;
+import com.flapkap.vending_machine.dto.PurchaseItem;
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.profiling.SlowRequestTraceFilter;
+import com.flapkap.vending_machine.repository.ProductRepository;
+import com.flapkap.vending_machine.repository.UserRepository;
+import com.flapkap.vending_machine.service.SlowRequestService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Every request counts as slow here, so each request leaves a trace.
+ */
+@SpringBootTest(properties = "vending.slow-requests.threshold=0ms")
+@ActiveProfiles("test")
+class SlowRequestControllerIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SlowRequestService slowRequestService;
+
+    @Autowired
+    private FilterRegistrationBean<SlowRequestTraceFilter> slowRequestTraceFilter;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilters(slowRequestTraceFilter.getFilter())
+                .apply(springSecurity())
+                .build();
+
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        UserEntity seller = userRepository.save(new UserEntity(null, "slow-seller", "password", 0, Set.of(Role.SELLER)));
+        userRepository.save(new UserEntity(null, "slow-buyer", "password", 100, Set.of(Role.BUYER)));
+        productRepository.save(new ProductEntity(null, 10, 30, "Traced Cola", seller));
+        slowRequestService.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        slowRequestService.clear();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getSlowRequests_ShouldContainSqlTraceOfPurchase() throws Exception {
+        mockMvc.perform(post("/api/v1/vendors/buy")
+                        .with(user("slow-buyer").roles("BUYER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BuyRequest(List.of(new PurchaseItem("Traced Cola", 1))))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/admin/slow-requests"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].method").value("POST"))
+                .andExpect(jsonPath("$[0].path").value("/api/v1/vendors/buy"))
+                .andExpect(jsonPath("$[0].handler").value("VendorMachineController.buy"))
+                .andExpect(jsonPath("$[0].outcome").value("success"))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].statementCount", greaterThan(0)))
+                .andExpect(jsonPath("$[0].statements[0].sql", containsStringIgnoringCase("select")))
+                .andExpect(jsonPath("$[0].statements[0].bindCount", greaterThan(0)))
+                .andExpect(jsonPath("$[0].statements[0].executions").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void clearSlowRequests_ShouldEmptyTheRing() throws Exception {
+        mockMvc.perform(get("/api/v1/products"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/v1/admin/slow-requests"))
+                .andExpect(status().isNoContent());
+
+        // Only the clear itself remains
+        mockMvc.perform(get("/api/v1/admin/slow-requests"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].handler").value("SlowRequestController.clearSlowRequests"));
+    }
+
+    @Test
+    @WithMockUser(roles = "BUYER")
+    void getSlowRequests_ShouldReturnForbidden_ForBuyer() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/slow-requests"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void unauthenticatedRequest_ShouldBeTracedWithoutHandler() throws Exception {
+        mockMvc.perform(post("/api/v1/vendors/reset"))
+                .andExpect(status().isUnauthorized());
+
+        // Turned away by the security filters before any handler was picked, and still traced
+        mockMvc.perform(get("/api/v1/admin/slow-requests").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].path").value("/api/v1/vendors/reset"))
+                .andExpect(jsonPath("$[0].handler").doesNotExist())
+                .andExpect(jsonPath("$[0].status").value(401));
+    }
+
+    @Test
+    @WithMockUser(username = "slow-buyer", roles = "BUYER")
+    void purchaseRefusedByExceptionHandler_ShouldBeTracedWithItsException() throws Exception {
+        mockMvc.perform(post("/api/v1/vendors/buy")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BuyRequest(List.of(new PurchaseItem("Traced Cola", 50))))))
+                .andExpect(status().isBadRequest());
+
+        assertEquals("InsufficientStockException", slowRequestService.getSlowRequests().get(0).outcome());
+        assertEquals(400, slowRequestService.getSlowRequests().get(0).status());
+    }
+}
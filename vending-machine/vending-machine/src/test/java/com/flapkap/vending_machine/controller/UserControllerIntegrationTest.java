@@ -20,6 +20,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -162,4 +163,37 @@ class UserControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(updateRequest)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    @WithMockUser(username = "admin@example.com", roles = "SELLER")
+    void updateUser_ShouldPersistAllRoles_WhenMultipleRolesGiven() throws Exception {
+        User originalUser = new User("testuser@example.com", "password123", 0, Set.of(Role.BUYER));
+        authService.signup(originalUser);
+
+        User roleChangeRequest = new User("testuser@example.com", null, 0, Set.of(Role.SELLER, Role.BUYER));
+
+        mockMvc.perform(put("/api/v1/users/testuser@example.com")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(roleChangeRequest)))
+                .andExpect(status().isOk());
+
+        assertEquals(Set.of(Role.SELLER, Role.BUYER),
+                userRepository.findByUsername("testuser@example.com").orElseThrow().getRoles());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser@example.com", roles = "SELLER")
+    void updateUser_ShouldReturnBadRequest_WhenAdminRoleRequested() throws Exception {
+        authService.signup(new User("testuser@example.com", "password123", 0, Set.of(Role.SELLER)));
+
+        User escalation = new User("testuser@example.com", null, 0, Set.of(Role.SELLER, Role.ADMIN));
+
+        mockMvc.perform(put("/api/v1/users/testuser@example.com")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(escalation)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(Set.of(Role.SELLER),
+                userRepository.findByUsername("testuser@example.com").orElseThrow().getRoles());
+    }
 }
@@ -1,17 +1,25 @@
 package com.flapkap.vending_machine.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.flapkap.vending_machine.config.ProtobufSchemaHttpMessageConverter;
 import com.flapkap.vending_machine.dto.*;
+import com.flapkap.vending_machine.dto.response.BuyResponse;
 import com.flapkap.vending_machine.entity.ProductEntity;
 import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.profiling.SqlStatementBudget;
 import com.flapkap.vending_machine.repository.ProductRepository;
 import com.flapkap.vending_machine.repository.UserRepository;
 import com.flapkap.vending_machine.service.AuthService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
@@ -23,6 +31,7 @@ import org.springframework.web.context.WebApplicationContext;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,7 +57,11 @@ class VendorMachineControllerIntegrationTest {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private MockMvc mockMvc;
+    private SqlStatementBudget sql;
     private UserEntity testBuyer;
     private UserEntity testSeller;
     private ProductEntity testProduct;
@@ -59,6 +72,7 @@ class VendorMachineControllerIntegrationTest {
                 .webAppContextSetup(context)
                 .apply(springSecurity())
                 .build();
+        sql = new SqlStatementBudget(mockMvc, entityManager);
 
         // Clean up
         productRepository.deleteAll();
@@ -88,11 +102,12 @@ class VendorMachineControllerIntegrationTest {
     void deposit_ShouldAddToBalance_WhenValidAmount() throws Exception {
         DepositRequest depositRequest = new DepositRequest(50);
 
-        mockMvc.perform(post("/api/v1/vendors/deposit")
+        sql.perform(post("/api/v1/vendors/deposit")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(depositRequest)))
+                        .content(objectMapper.writeValueAsString(depositRequest)), 2)
                 .andExpect(status().isOk())
-                .andExpect(content().string("Successfully deposited 50 cents. New balance: 150 cents"));
+                .andExpect(jsonPath("$.deposited").value(50))
+                .andExpect(jsonPath("$.deposit").value(150));
     }
 
     @Test
@@ -105,6 +120,7 @@ class VendorMachineControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Invalid request"))
+                .andExpect(jsonPath("$.code").value("INVALID_COIN"))
                 .andExpect(jsonPath("$.message").value("Only 5, 10, 20, 50, or 100 cent coins are accepted"));
     }
 
@@ -129,13 +145,15 @@ class VendorMachineControllerIntegrationTest {
         PurchaseItem item = new PurchaseItem(testProduct.getProductName(), 1);
         BuyRequest buyRequest = new BuyRequest(List.of(item));
 
-        mockMvc.perform(post("/api/v1/vendors/buy")
+        sql.perform(post("/api/v1/vendors/buy")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(buyRequest)))
+                        .content(objectMapper.writeValueAsString(buyRequest)), 4)
                 .andExpect(status().isOk())
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("Purchase successful!")))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("Test Cola x 1")))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("Total spent: 50 cents")));
+                .andExpect(jsonPath("$.totalSpent").value(50))
+                .andExpect(jsonPath("$.products[0].productName").value("Test Cola"))
+                .andExpect(jsonPath("$.products[0].amountOfProducts").value(1))
+                .andExpect(jsonPath("$.change").value(50))
+                .andExpect(jsonPath("$.coins").value(org.hamcrest.Matchers.contains(50)));
     }
 
     @Test
@@ -152,7 +170,9 @@ class VendorMachineControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(buyRequest)))
                 .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.error").value("Invalid request"));
+                .andExpect(jsonPath("$.error").value("Invalid request"))
+                .andExpect(jsonPath("$.code").value("INSUFFICIENT_FUNDS"))
+                .andExpect(jsonPath("$.message").value("The deposit does not cover the purchase"));
     }
 
     @Test
@@ -184,7 +204,28 @@ class VendorMachineControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(buyRequest)))
                 .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.error").value("Invalid request"));
+                .andExpect(jsonPath("$.error").value("Invalid request"))
+                .andExpect(jsonPath("$.code").value("INSUFFICIENT_STOCK"));
+    }
+
+    @Test
+    @WithMockUser(username = "buyer@test.com", roles = "BUYER")
+    void buy_ShouldReturnBadRequest_WhenDuplicateLinesExceedStock() throws Exception {
+        testBuyer.setDeposit(1000);
+        userRepository.save(testBuyer);
+
+        // Each line fits the 10 available, together they do not
+        BuyRequest buyRequest = new BuyRequest(List.of(
+                new PurchaseItem(testProduct.getProductName(), 6),
+                new PurchaseItem(testProduct.getProductName(), 6)));
+
+        mockMvc.perform(post("/api/v1/vendors/buy")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buyRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INSUFFICIENT_STOCK"));
+
+        assertEquals(10, productRepository.findById(testProduct.getId()).orElseThrow().getAmountAvailable());
     }
 
     @Test
@@ -206,9 +247,10 @@ class VendorMachineControllerIntegrationTest {
         testBuyer.setDeposit(75);
         userRepository.save(testBuyer);
 
-        mockMvc.perform(post("/api/v1/vendors/reset"))
+        sql.perform(post("/api/v1/vendors/reset"), 2)
                 .andExpect(status().isOk())
-                .andExpect(content().string("Deposit reset successfully. Returned: 1 x 50 cents, 1 x 20 cents, 1 x 5 cents"));
+                .andExpect(jsonPath("$.returned").value(75))
+                .andExpect(jsonPath("$.coins").value(org.hamcrest.Matchers.contains(50, 20, 5)));
     }
 
     @Test
@@ -240,9 +282,55 @@ class VendorMachineControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(buyRequest)))
                 .andExpect(status().isOk())
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("Purchase successful!")))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("Test Cola x 2")))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("Test Chips x 1")))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("Total spent: 130 cents")));
+                .andExpect(jsonPath("$.totalSpent").value(130))
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.products[0].amountOfProducts").value(2))
+                .andExpect(jsonPath("$.products[1].productName").value("Test Chips"))
+                .andExpect(jsonPath("$.change").value(70))
+                .andExpect(jsonPath("$.coins").value(org.hamcrest.Matchers.contains(50, 20)));
+    }
+
+    @Test
+    @WithMockUser(username = "buyer@test.com", roles = "BUYER")
+    void buy_ShouldStayWithinStatementBudget_WhenBuyingThreeProducts() throws Exception {
+        for (String name : List.of("Test Chips", "Test Candy")) {
+            productRepository.save(new ProductEntity(null, 5, 10, name, testSeller));
+        }
+        testBuyer.setDeposit(100);
+        userRepository.save(testBuyer);
+
+        BuyRequest buyRequest = new BuyRequest(List.of(
+                new PurchaseItem("Test Cola", 1),
+                new PurchaseItem("Test Chips", 1),
+                new PurchaseItem("Test Candy", 2)));
+
+        // One locking read and one update for the buyer and for each product
+        sql.perform(post("/api/v1/vendors/buy")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buyRequest)), 8)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalSpent").value(80));
+    }
+
+    @Test
+    @WithMockUser(username = "buyer@test.com", roles = "BUYER")
+    void buy_ShouldAnswerInProtobuf_WhenRequested() throws Exception {
+        testBuyer.setDeposit(100);
+        userRepository.save(testBuyer);
+        NativeProtobufSchema schema = ProtobufSchemaLoader.std.loadNative(
+                new ClassPathResource("proto/vending.proto").getInputStream(), true);
+        ProtobufMapper protobufMapper = new ProtobufMapper();
+        BuyRequest buyRequest = new BuyRequest(List.of(new PurchaseItem(testProduct.getProductName(), 1)));
+
+        byte[] body = mockMvc.perform(post("/api/v1/vendors/buy")
+                        .contentType(ProtobufSchemaHttpMessageConverter.PROTOBUF)
+                        .accept(ProtobufSchemaHttpMessageConverter.PROTOBUF)
+                        .content(protobufMapper.writer(schema.forType("BuyRequest")).writeValueAsBytes(buyRequest)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ProtobufSchemaHttpMessageConverter.PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(new BuyResponse(50, buyRequest.items(), 50, List.of(50)),
+                protobufMapper.readerFor(BuyResponse.class).with(schema.forType("BuyResponse")).readValue(body));
     }
 }
@@ -0,0 +1,130 @@
+package com.flapkap.vending_machine.datasource;
+
+import com.flapkap.vending_machine.dto.Product;
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.repository.ProductRepository;
+import com.flapkap.vending_machine.repository.UserRepository;
+import com.flapkap.vending_machine.service.ProductService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two independent H2 databases stand in for the primary and the replica. Nothing is
+ * replicated, so a row inserted into only one of them shows which one served a query.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1",
+        "vending.datasource.replica.url=jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1",
+        "vending.datasource.routing.lag-query=SELECT lag_seconds FROM replica_lag",
+        "vending.datasource.routing.lag-check-interval=1h",
+        "vending.datasource.routing.max-lag=5s"
+})
+@ActiveProfiles("test")
+class ReadWriteRoutingIntegrationTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+
+        // Replication would normally bring the schema along
+        Flyway.configure().dataSource(replicaDataSource).load().migrate();
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_seconds BIGINT)");
+        replica.update("DELETE FROM replica_lag");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+
+        replica.update("INSERT INTO users (id, username, password, deposit, roles) VALUES (900, 'replica-seller', 'x', 0, 1)");
+        replica.update("INSERT INTO products (amount_available, cost, product_name, seller_id) VALUES (1, 10, 'Replica Only', 900)");
+        replicaLagMonitor.check();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replica.update("DELETE FROM products");
+        replica.update("DELETE FROM users");
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldUseReplica() {
+        List<Product> products = productService.getAllProducts();
+
+        assertTrue(products.stream().anyMatch(p -> p.productName().equals("Replica Only")));
+    }
+
+    @Test
+    void writeTransaction_ShouldUsePrimary() {
+        UserEntity seller = userRepository.save(new UserEntity(null, "primary-seller", "x", 0, Set.of(Role.SELLER)));
+
+        productService.createProduct(new Product(5, 20, "Primary Only", seller.getId()));
+
+        assertEquals(1, primary.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE product_name = 'Primary Only'", Integer.class));
+        assertEquals(0, replica.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE product_name = 'Primary Only'", Integer.class));
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldFallBackToPrimary_WhenReplicaLags() {
+        replica.update("UPDATE replica_lag SET lag_seconds = 60");
+        replicaLagMonitor.check();
+
+        List<Product> products = productService.getAllProducts();
+
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertFalse(products.stream().anyMatch(p -> p.productName().equals("Replica Only")));
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldFallBackToPrimary_WhenReplicationStopped() {
+        // A stopped replica reports its lag as NULL, not as zero
+        replica.update("UPDATE replica_lag SET lag_seconds = NULL");
+        replicaLagMonitor.check();
+
+        List<Product> products = productService.getAllProducts();
+
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(Long.MAX_VALUE, replicaLagMonitor.getLastLagSeconds());
+        assertFalse(products.stream().anyMatch(p -> p.productName().equals("Replica Only")));
+    }
+}
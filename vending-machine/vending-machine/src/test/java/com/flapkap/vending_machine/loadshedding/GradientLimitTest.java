@@ -0,0 +1,83 @@
+package com.flapkap.vending_machine.loadshedding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final GradientLimit limit = new GradientLimit(
+            new LoadSheddingProperties(true, 20, 4, 200, 1.5, 0.2, 600, 0.9));
+
+    @Test
+    void admission_ShouldStopAtTheLimit() {
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(i, limit.tryAcquire());
+        }
+        assertEquals(0, limit.tryAcquire());
+
+        limit.release(FAST, 20, false);
+        assertTrue(limit.tryAcquire() > 0);
+    }
+
+    @Test
+    void steadyLatencyAtFullWindow_ShouldRaiseTheLimit() {
+        completeAtLimit(200, FAST);
+
+        assertTrue(limit.getLimit() > 40, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void steadyLatencyBelowHalfTheWindow_ShouldStopRaisingTheLimit() {
+        complete(200, FAST, 20);
+
+        assertEquals(40, limit.getLimit());
+    }
+
+    @Test
+    void risingLatency_ShouldLowerTheLimit() {
+        completeAtLimit(200, FAST);
+        int before = limit.getLimit();
+
+        completeAtLimit(20, SLOW);
+
+        assertTrue(limit.getLimit() < before / 2, before + " -> " + limit.getLimit());
+    }
+
+    @Test
+    void serverErrors_ShouldBackOffToTheMinimum() {
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, 1, true);
+        }
+
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void requestsThatDoNotFillTheWindow_ShouldNotRaiseTheLimit() {
+        complete(200, FAST, 1);
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    private void completeAtLimit(int requests, long rttNanos) {
+        for (int i = 0; i < requests; i++) {
+            limit.tryAcquire();
+            limit.release(rttNanos, limit.getLimit(), false);
+        }
+    }
+
+    private void complete(int requests, long rttNanos, int inFlight) {
+        for (int i = 0; i < requests; i++) {
+            limit.tryAcquire();
+            limit.release(rttNanos, inFlight, false);
+        }
+    }
+}
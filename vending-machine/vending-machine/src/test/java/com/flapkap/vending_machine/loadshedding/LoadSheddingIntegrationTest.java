@@ -0,0 +1,85 @@
+package com.flapkap.vending_machine.loadshedding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "vending.load-shedding.enabled=true",
+        "vending.load-shedding.initial-limit=1",
+        "vending.load-shedding.min-limit=1",
+        "vending.load-shedding.max-limit=1"
+})
+@ActiveProfiles("test")
+class LoadSheddingIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private LoadSheddingInterceptor loadSheddingInterceptor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "BUYER")
+    void buyAtItsLimit_ShouldBeShedWhileDepositStillRuns() throws Exception {
+        GradientLimit buy = loadSheddingInterceptor.limitFor("buy");
+        assertEquals(1, buy.tryAcquire());
+        try {
+            mockMvc.perform(post("/api/v1/vendors/buy")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"items\":[{\"productName\":\"Cola\",\"quantity\":1}]}"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.status").value(503));
+
+            // Other endpoints keep their own limits
+            mockMvc.perform(post("/api/v1/vendors/deposit")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\":5}"))
+                    .andExpect(status().isOk());
+        } finally {
+            buy.release(0, 1, false);
+        }
+
+        assertEquals(1, meterRegistry.get(LoadSheddingInterceptor.REJECTED).tag("endpoint", "buy").counter().count());
+        assertEquals(0, buy.getInFlight());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "BUYER")
+    void completedRequests_ShouldReleaseTheirSlot() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/v1/vendors/reset")).andExpect(status().isOk());
+        }
+
+        assertEquals(0, loadSheddingInterceptor.limitFor("reset").getInFlight());
+    }
+}
@@ -0,0 +1,105 @@
+package com.flapkap.vending_machine.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flapkap.vending_machine.dto.BuyRequest;
+import com.flapkap.vending_machine.dto.DepositRequest;
+import com.flapkap.vending_machine.dto.PurchaseItem;
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import com.flapkap.vending_machine.repository.ProductRepository;
+import com.flapkap.vending_machine.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional on purpose: business counters are only incremented after commit.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureObservability
+class MetricsIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        UserEntity seller = userRepository.save(new UserEntity(null, "metrics-seller", "password", 0, Set.of(Role.SELLER)));
+        userRepository.save(new UserEntity(null, "metrics-buyer", "password", 0, Set.of(Role.BUYER)));
+        productRepository.save(new ProductEntity(null, 10, 50, "Metrics Cola", seller));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "metrics-buyer", roles = "BUYER")
+    void prometheus_ShouldExposeVendingTimersAndBusinessCounters() throws Exception {
+        mockMvc.perform(post("/api/v1/vendors/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DepositRequest(100))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/vendors/buy")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BuyRequest(List.of(new PurchaseItem("Metrics Cola", 2))))))
+                .andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("vending_machine_operation_seconds_count{"), scrape);
+        assertTrue(scrape.contains("operation=\"deposit\""));
+        assertTrue(scrape.contains("operation=\"buy\""));
+        assertTrue(scrape.contains("vending_machine_operation_seconds_bucket{"), "Timers should publish histograms");
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("vending_coins_deposited_cents_total{")
+                && line.endsWith(" 100.0")));
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("vending_items_sold_total{")
+                && line.contains("product=\"Metrics Cola\"") && line.endsWith(" 2.0")));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_count{"));
+        assertTrue(scrape.contains("hikaricp_connections_acquire_seconds_count{"));
+    }
+}
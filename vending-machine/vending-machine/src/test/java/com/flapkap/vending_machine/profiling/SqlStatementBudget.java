@@ -0,0 +1,62 @@
+package com.flapkap.vending_machine.profiling;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.stream.Collectors;
+
+/**
+ * Fails a MockMvc call that issues more SQL statements than it is allowed. Statements
+ * are counted with the same {@link SqlTrace} that feeds the slow request traces, so a
+ * failure lists every statement the call prepared.
+ * <p>
+ * In a {@code @Transactional} test the persistence context is flushed and cleared
+ * before the call, so the call cannot be served from entities the test set up, and
+ * flushed again after it, so the writes that would go out at commit are counted too.
+ */
+public final class SqlStatementBudget {
+
+    private static final int MAX_TRACED_STATEMENTS = 500;
+
+    private final MockMvc mockMvc;
+    private final EntityManager entityManager;
+
+    public SqlStatementBudget(MockMvc mockMvc, EntityManager entityManager) {
+        this.mockMvc = mockMvc;
+        this.entityManager = entityManager;
+    }
+
+    public ResultActions perform(RequestBuilder request, int maxStatements) throws Exception {
+        boolean transactional = TransactionSynchronizationManager.isActualTransactionActive();
+        if (transactional) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        SqlTrace trace = SqlTrace.start(MAX_TRACED_STATEMENTS);
+        if (trace == null) {
+            throw new IllegalStateException("A SQL trace is already running on this thread");
+        }
+        ResultActions result;
+        try {
+            result = mockMvc.perform(request);
+            if (transactional) {
+                entityManager.flush();
+            }
+        } finally {
+            trace.stop();
+        }
+
+        int statements = trace.statements().size() + trace.droppedStatements();
+        if (statements > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements + " SQL statements but "
+                    + statements + " were issued:" + trace.statements().stream()
+                    .map(statement -> System.lineSeparator() + "  " + statement.sql())
+                    .collect(Collectors.joining()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.flapkap.vending_machine.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "vending.rate-limit.enabled=true",
+        "vending.rate-limit.idle-timeout=0s",
+        "vending.rate-limit.routes.catalog.method=GET",
+        "vending.rate-limit.routes.catalog.pattern=/api/v1/products",
+        "vending.rate-limit.routes.catalog.capacity=2",
+        "vending.rate-limit.routes.catalog.refill-per-second=0.5",
+        "vending.rate-limit.routes.caches.pattern=/api/v1/admin/caches",
+        "vending.rate-limit.routes.caches.capacity=1",
+        "vending.rate-limit.routes.caches.refill-per-second=1000"
+})
+@ActiveProfiles("test")
+class RateLimitIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @Test
+    void anonymousCatalogReads_ShouldBeLimitedPerClientAddress() throws Exception {
+        double rejectedBefore = rejected("catalog");
+
+        mockMvc.perform(get("/api/v1/products").with(address("10.0.0.1"))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/products").with(address("10.0.0.1"))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/products").with(address("10.0.0.1")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.path").value("/api/v1/products"));
+
+        // Another kiosk still has its own tokens
+        mockMvc.perform(get("/api/v1/products").with(address("10.0.0.2"))).andExpect(status().isOk());
+        assertEquals(rejectedBefore + 1, rejected("catalog"));
+    }
+
+    @Test
+    void authenticatedCallers_ShouldBeLimitedPerUsername() throws Exception {
+        mockMvc.perform(get("/api/v1/products").with(address("10.0.1.1")).with(user("kiosk-a")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/products").with(address("10.0.1.2")).with(user("kiosk-a")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/products").with(address("10.0.1.3")).with(user("kiosk-a")))
+                .andExpect(status().isTooManyRequests());
+
+        // Same address, different user
+        mockMvc.perform(get("/api/v1/products").with(address("10.0.1.3")).with(user("kiosk-b")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void requestsOutsideTheConfiguredRoutes_ShouldNotBeLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/api/v1/admin/slow-requests").with(user("busy-admin").roles("ADMIN")))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void idleBuckets_ShouldBeEvicted() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/caches").with(user("idle-admin").roles("ADMIN")))
+                .andExpect(status().isOk());
+        assertEquals(1, buckets("caches"));
+
+        // The bucket refills within a millisecond and the idle timeout is zero
+        Thread.sleep(5);
+        rateLimiter.evictIdle();
+        assertEquals(0, buckets("caches"));
+    }
+
+    private static RequestPostProcessor address(String remoteAddr) {
+        return request -> {
+            request.setRemoteAddr(remoteAddr);
+            return request;
+        };
+    }
+
+    private double rejected(String route) {
+        return meterRegistry.get(RateLimiter.REJECTED).tag("route", route).counter().count();
+    }
+
+    private double buckets(String route) {
+        return meterRegistry.get(RateLimiter.BUCKETS).tag("route", route).gauge().value();
+    }
+}
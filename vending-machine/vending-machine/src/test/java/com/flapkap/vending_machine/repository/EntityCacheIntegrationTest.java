@@ -0,0 +1,120 @@
+package com.flapkap.vending_machine.repository;
+
+import com.flapkap.vending_machine.dto.Role;
+import com.flapkap.vending_machine.entity.ProductEntity;
+import com.flapkap.vending_machine.entity.UserEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional on purpose: second-level cache entries are only shared once a transaction commits.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityCacheIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        UserEntity seller = new UserEntity(null, "cache-seller", "password", 0, Set.of(Role.SELLER));
+        seller = userRepository.save(seller);
+        productRepository.save(new ProductEntity(null, 10, 50, "Cached Cola", seller));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void findByProductName_ShouldNotQueryDatabase_WhenReadTwice() {
+        productRepository.findByProductName("Cached Cola").orElseThrow();
+        long statementsAfterFirstRead = statistics.getPrepareStatementCount();
+
+        productRepository.findByProductName("Cached Cola").orElseThrow();
+
+        assertEquals(statementsAfterFirstRead, statistics.getPrepareStatementCount(),
+                "Second lookup should be served from the cache");
+        assertTrue(statistics.getQueryCacheHitCount() >= 1, "Second lookup should hit the query cache");
+    }
+
+    @Test
+    void findById_ShouldHitProductsRegion() {
+        Long id = productRepository.findByProductName("Cached Cola").orElseThrow().getId();
+
+        productRepository.findById(id).orElseThrow();
+
+        assertTrue(statistics.getCacheRegionStatistics("products").getHitCount() >= 1,
+                "Entity should be resolved from the products region");
+    }
+
+    @Test
+    void findByProductName_ShouldSeeUpdate_AfterSave() {
+        ProductEntity product = productRepository.findByProductName("Cached Cola").orElseThrow();
+        product.setAmountAvailable(3);
+        productRepository.save(product);
+
+        assertEquals(3, productRepository.findByProductName("Cached Cola").orElseThrow().getAmountAvailable());
+    }
+
+    @Test
+    void findByUsername_ShouldSeeUpdate_AfterSave() {
+        UserEntity user = userRepository.findByUsername("cache-seller").orElseThrow();
+        user.setDeposit(70);
+        userRepository.save(user);
+
+        assertEquals(70, userRepository.findByUsername("cache-seller").orElseThrow().getDeposit());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void cacheStatistics_ShouldListRegions() throws Exception {
+        productRepository.findByProductName("Cached Cola");
+
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        mockMvc.perform(get("/api/v1/admin/caches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.region == 'products')]").exists())
+                .andExpect(jsonPath("$[?(@.region == 'users')]").exists());
+    }
+}
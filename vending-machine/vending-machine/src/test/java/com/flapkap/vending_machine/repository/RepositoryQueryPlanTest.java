@@ -0,0 +1,134 @@
+package com.flapkap.vending_machine.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs EXPLAIN on the SQL generated for the hot-path repository queries and
+ * fails if any of them is planned as a full table scan.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.flapkap.vending_machine.repository.RepositoryQueryPlanTest$CapturingStatementInspector")
+@ActiveProfiles("test")
+class RepositoryQueryPlanTest {
+
+    private static final Pattern H2_UNCONDITIONAL_ACCESS = Pattern.compile("/\\*\\s*[^:*]+\\*/");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findByProductName_ShouldUseIndex() {
+        assertNoFullScan(() -> productRepository.findByProductName("Cola"));
+    }
+
+    @Test
+    void existsByProductName_ShouldUseIndex() {
+        assertNoFullScan(() -> productRepository.existsByProductName("Cola"));
+    }
+
+    @Test
+    void deleteByProductName_ShouldUseIndex() {
+        assertNoFullScan(() -> productRepository.deleteByProductName("Cola"));
+    }
+
+    @Test
+    void deleteByProductNameIn_ShouldUseIndex() {
+        assertNoFullScan(() -> productRepository.deleteByProductNameIn(List.of("Cola", "Chips")));
+    }
+
+    @Test
+    void deleteBySellerId_ShouldUseIndex() {
+        assertNoFullScan(() -> productRepository.deleteBySellerId(1L));
+    }
+
+    @Test
+    void findByUsername_ShouldUseIndex() {
+        assertNoFullScan(() -> userRepository.findByUsername("buyer"));
+    }
+
+    private void assertNoFullScan(Runnable query) {
+        CapturingStatementInspector.STATEMENTS.remove();
+        query.run();
+        List<String> statements = CapturingStatementInspector.STATEMENTS.get();
+        assertFalse(statements.isEmpty(), "No SQL was captured");
+
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(isFullScan(plan), () -> "Full scan for: " + sql + "\nPlan: " + plan);
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                bindPlaceholders(statement);
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery()) {
+                    int columns = rs.getMetaData().getColumnCount();
+                    while (rs.next()) {
+                        for (int i = 1; i <= columns; i++) {
+                            plan.append(rs.getMetaData().getColumnLabel(i)).append('=')
+                                    .append(rs.getString(i)).append(' ');
+                        }
+                        plan.append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    // The planner only needs type-compatible values to pick an access path
+    private static void bindPlaceholders(PreparedStatement statement) throws SQLException {
+        ParameterMetaData metaData = statement.getParameterMetaData();
+        for (int i = 1; i <= metaData.getParameterCount(); i++) {
+            switch (metaData.getParameterType(i)) {
+                case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> statement.setLong(i, 1L);
+                default -> statement.setString(i, "x");
+            }
+        }
+    }
+
+    // H2 prints the access path as a comment such as "PUBLIC.IDX: COL = ?1". A path
+    // without a condition ("tableScan" or a bare index name) walks every row.
+    // MySQL reports such plans with access type ALL or index.
+    private boolean isFullScan(String plan) {
+        return H2_UNCONDITIONAL_ACCESS.matcher(plan).find()
+                || plan.contains("type=ALL ")
+                || plan.contains("type=index ");
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.get().add(sql);
+            return sql;
+        }
+    }
+}
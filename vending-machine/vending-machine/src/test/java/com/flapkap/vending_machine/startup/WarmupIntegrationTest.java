@@ -0,0 +1,95 @@
+package com.flapkap.vending_machine.startup;
+
+import com.flapkap.vending_machine.dto.response.StartupReport;
+import com.flapkap.vending_machine.repository.ProductRepository;
+import com.flapkap.vending_machine.repository.UserRepository;
+import com.flapkap.vending_machine.service.StartupService;
+import com.flapkap.vending_machine.service.impl.StartupServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "vending.warmup.enabled=true",
+        "vending.warmup.iterations=20",
+        "vending.warmup.database-iterations=3"
+})
+@ActiveProfiles("test")
+class WarmupIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private StartupService startupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void warmup_ShouldRunEveryStepBeforeStartupCompletes() {
+        List<StartupReport.WarmupStep> steps = startupService.getReport(0).warmup();
+
+        assertEquals(List.of("jwt-verify", "catalog", "json", "dry-run-buy"),
+                steps.stream().map(StartupReport.WarmupStep::step).toList());
+        steps.forEach(step -> assertEquals("ok", step.outcome(), step.step()));
+        assertEquals(List.of(20, 3, 20, 3), steps.stream().map(StartupReport.WarmupStep::iterations).toList());
+    }
+
+    @Test
+    void dryRunPurchases_ShouldLeaveNoDataBehind() {
+        assertTrue(userRepository.findAll().stream().noneMatch(user -> user.getUsername().startsWith("warmup-")));
+        assertTrue(productRepository.findAll().stream().noneMatch(product -> product.getProductName().startsWith("warmup-")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void startupReport_ShouldListTheWarmupSteps() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+        mockMvc.perform(get("/api/v1/admin/startup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.warmup.length()").value(4))
+                .andExpect(jsonPath("$.warmup[3].step").value("dry-run-buy"))
+                .andExpect(jsonPath("$.slowestBeans").isArray());
+    }
+
+    @Test
+    void slowestBeans_ShouldBeRankedByTheirOwnTime() throws InterruptedException {
+        BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+        StartupStep outer = applicationStartup.start("spring.beans.instantiate").tag("beanName", "outer");
+        Thread.sleep(5);
+        StartupStep inner = applicationStartup.start("spring.beans.instantiate").tag("beanName", "inner");
+        Thread.sleep(30);
+        inner.end();
+        outer.end();
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        applicationContext.setApplicationStartup(applicationStartup);
+
+        List<StartupReport.BeanInitialization> slowest = new StartupServiceImpl(applicationContext).getReport(10).slowestBeans();
+
+        assertEquals(List.of("inner", "outer"), slowest.stream().map(StartupReport.BeanInitialization::bean).toList());
+        assertTrue(slowest.get(1).totalMillis() > slowest.get(0).totalMillis(), "outer includes inner");
+        assertTrue(slowest.get(1).selfMillis() < slowest.get(0).selfMillis());
+    }
+}
@@ -0,0 +1,208 @@
+package com.flapkap.vending_machine.timeout;
+
+import com.flapkap.vending_machine.metrics.VendingMetrics;
+import com.flapkap.vending_machine.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "vending.timeouts.enabled=true",
+        "vending.concurrency.mode=pessimistic",
+        "vending.timeouts.operations.deposit=300ms",
+        "vending.timeouts.operations.catalog=500ms"
+})
+@ActiveProfiles("test")
+class OperationTimeoutIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StatementCanceller statementCanceller;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ExecutorService lockHolder = Executors.newSingleThreadExecutor();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lockHolder.shutdownNow();
+    }
+
+    @Test
+    void slowStatement_ShouldBeCancelledAtTheDeadline() throws Exception {
+        double cancelledBefore = cancelledStatements();
+        try (Connection connection = statementCanceller.around(dataSource).getConnection();
+             Statement statement = connection.createStatement()) {
+            Deadline.start("test", Duration.ofMillis(200));
+            try {
+                assertThrows(SQLTimeoutException.class, () -> statement.executeQuery(
+                        "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b WHERE a.X + b.X = 3"));
+            } finally {
+                Deadline.clear();
+            }
+        }
+
+        // Cancelled by the timer, not by the one-second query timeout; the count is
+        // taken before the statement is released, so no waiting is needed
+        assertEquals(cancelledBefore + 1, cancelledStatements());
+        // The pool replaces the connection it evicted after the timeout
+        try (Connection connection = statementCanceller.around(dataSource).getConnection();
+             Statement statement = connection.createStatement()) {
+            assertTrue(statement.executeQuery("SELECT 1").next());
+        }
+    }
+
+    @Test
+    void statementFinishedInTime_ShouldNotBeCancelledLater() throws Exception {
+        double cancelledBefore = cancelledStatements();
+        try (Connection connection = statementCanceller.around(dataSource).getConnection();
+             Statement statement = connection.createStatement()) {
+            Deadline.start("test", Duration.ofMillis(50));
+            try {
+                assertTrue(statement.executeQuery("SELECT 1").next());
+            } finally {
+                Deadline.clear();
+            }
+            // Past the deadline, the same statement runs again without one
+            Thread.sleep(100);
+            assertTrue(statement.executeQuery("SELECT 1").next());
+        }
+
+        assertEquals(cancelledBefore, cancelledStatements());
+    }
+
+    @Test
+    void closedStatement_ShouldGetItsPreviousQueryTimeoutBack() throws Exception {
+        DataSource pool = mock(DataSource.class);
+        Connection pooled = mock(Connection.class);
+        Statement cached = mock(Statement.class);
+        when(pool.getConnection()).thenReturn(pooled);
+        when(pooled.createStatement()).thenReturn(cached);
+        when(cached.getQueryTimeout()).thenReturn(7);
+
+        Statement statement = statementCanceller.around(pool).getConnection().createStatement();
+        Deadline.start("test", Duration.ofSeconds(3));
+        try {
+            statement.execute("SELECT 1");
+        } finally {
+            Deadline.clear();
+        }
+        statement.close();
+
+        InOrder inOrder = inOrder(cached);
+        inOrder.verify(cached).setQueryTimeout(3);
+        inOrder.verify(cached).execute("SELECT 1");
+        inOrder.verify(cached).setQueryTimeout(7);
+        inOrder.verify(cached).close();
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "BUYER")
+    void depositPastItsDeadline_ShouldBeAnsweredWithATimeout() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = lockHolder.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.findLockedByUsername("testuser").orElseThrow();
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // H2 ignores cancellation while waiting for a lock and gives up at its own lock
+        // timeout; by then the deadline has passed, so the deposit is not retried
+        try {
+            mockMvc.perform(post("/api/v1/vendors/deposit")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\":5}"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.error").value("Timeout"));
+        } finally {
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, meterRegistry.get(VendingMetrics.OPERATION_TIMEOUTS).tag("operation", "deposit").counter().count());
+
+        // The row is free again and the next deposit gets through
+        mockMvc.perform(post("/api/v1/vendors/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":5}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "BUYER")
+    void operationsWithinTheirDeadline_ShouldNotBeAffected() throws Exception {
+        mockMvc.perform(get("/api/v1/products")).andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/vendors/reset")).andExpect(status().isOk());
+
+        assertTrue(meterRegistry.find(VendingMetrics.OPERATION_TIMEOUTS).tag("operation", "catalog").counters().isEmpty());
+    }
+
+    private double cancelledStatements() {
+        Counter counter = meterRegistry.find(VendingMetrics.STATEMENTS_CANCELLED).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
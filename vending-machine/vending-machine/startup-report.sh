@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Compares startup time and resident memory of the plain jar with the AOT + CDS build.
+# Build first with: mvn -Pcds clean package -DskipTests
+# Usage: ./startup-report.sh [runs]   (default 3; the median of the runs is reported)
+set -euo pipefail
+
+cd "$(dirname "$0")"
+RUNS="${1:-3}"
+JAR=target/vending-machine-0.0.1-SNAPSHOT.jar
+CDS_DIR=target/cds
+APP_ARGS=(--spring.profiles.active=local --server.port=0 --vending.config.snapshot.enabled=false)
+
+if [[ ! -f "$CDS_DIR/application.jsa" ]]; then
+  echo "No CDS archive in $CDS_DIR, build with: mvn -Pcds clean package -DskipTests" >&2
+  exit 1
+fi
+
+# Starts the application, waits for the startup log line and prints "<seconds> <rss-kb>"
+measure() {
+  local dir="$1"; shift
+  local log
+  log="$(mktemp)"
+  (cd "$dir" && exec java "$@" "${APP_ARGS[@]}") >"$log" 2>&1 &
+  local pid=$!
+  local line=""
+  for _ in $(seq 1 600); do
+    line="$(grep -m1 -o 'Started VendingMachineApplication in [0-9.]* seconds' "$log" || true)"
+    [[ -n "$line" ]] && break
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Application exited during startup, see $log" >&2
+      return 1
+    fi
+    sleep 0.1
+  done
+  local rss
+  rss="$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")"
+  kill "$pid" && wait "$pid" 2>/dev/null || true
+  rm -f "$log"
+  echo "$(awk '{print $4}' <<<"$line") $rss"
+}
+
+median() {
+  sort -n | awk '{v[NR] = $1} END {print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2}'
+}
+
+report() {
+  local name="$1" dir="$2"; shift 2
+  local times=() rss=()
+  for _ in $(seq 1 "$RUNS"); do
+    read -r t r < <(measure "$dir" "$@")
+    times+=("$t"); rss+=("$r")
+  done
+  printf '%-12s %10s s %10s MB\n' "$name" \
+    "$(printf '%s\n' "${times[@]}" | median)" \
+    "$(printf '%s\n' "${rss[@]}" | median | awk '{printf "%.0f", $1 / 1024}')"
+}
+
+printf '%-12s %12s %13s\n' "build" "startup" "rss"
+report "plain jar" . -jar "$JAR"
+report "aot + cds" "$CDS_DIR" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+  -Dspring.cloud.refresh.enabled=false -jar "$(basename "$JAR")"